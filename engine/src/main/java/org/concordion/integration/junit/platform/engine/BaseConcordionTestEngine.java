@@ -17,30 +17,130 @@
 package org.concordion.integration.junit.platform.engine;
 
 import static java.util.stream.Stream.concat;
+import static org.junit.platform.commons.support.AnnotationSupport.findRepeatableAnnotations;
 import static org.junit.platform.commons.support.ReflectionSupport.streamAllClassesInPackage;
 
 import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import org.concordion.api.SpecificationLocator;
 import org.concordion.internal.ClassNameBasedSpecificationLocator;
+import org.junit.platform.engine.ConfigurationParameters;
 import org.junit.platform.engine.EngineDiscoveryRequest;
 import org.junit.platform.engine.ExecutionRequest;
 import org.junit.platform.engine.TestDescriptor;
+import org.junit.platform.engine.TestExecutionResult;
+import org.junit.platform.engine.TestExecutionResult.Status;
 import org.junit.platform.engine.UniqueId;
 import org.junit.platform.engine.discovery.ClassSelector;
 import org.junit.platform.engine.discovery.PackageSelector;
+import org.junit.platform.engine.support.config.PrefixedConfigurationParameters;
+import org.junit.platform.engine.support.hierarchical.ExclusiveResource;
+import org.junit.platform.engine.support.hierarchical.ForkJoinPoolHierarchicalTestExecutorService;
 import org.junit.platform.engine.support.hierarchical.HierarchicalTestEngine;
+import org.junit.platform.engine.support.hierarchical.HierarchicalTestExecutorService;
+import org.junit.platform.engine.support.hierarchical.Node.ExecutionMode;
+import org.junit.platform.engine.support.hierarchical.Node.Invocation;
+import org.junit.platform.engine.support.hierarchical.Node.SkipResult;
 
 /**
  * A common foundation for Concordion test engines. The implementation
  * must define how to determine if a class is a Concordion fixture and
  * how to create a fixture object from such class.
+ *
+ * <p>The engine supports the following configuration parameters:</p>
+ * <ul>
+ * <li>{@value #TIMINGS_FILE_PROPERTY_NAME} &ndash; the file to record
+ * the specification and example durations to, and to read the durations
+ * recorded by the previous runs from. The specifications are started
+ * longest first, so that a long specification does not start last and
+ * delay the end of a parallel run;</li>
+ * <li>{@value #SHARD_COUNT_PROPERTY_NAME} and
+ * {@value #SHARD_INDEX_PROPERTY_NAME} &ndash; the number of shards
+ * to split the specifications into, and the zero-based index of the
+ * shard to run. The specifications are split so that each shard gets
+ * about the same total duration, according to the recorded durations.
+ * </li>
+ * <li>{@value #CHANGES_FILE_PROPERTY_NAME} &ndash; the file to record
+ * the content hashes of the passed specifications to. When set, only
+ * the specifications that changed since they last passed are run, see
+ * {@link SpecificationChanges};</li>
+ * <li>{@value #FAIL_FAST_THRESHOLD_PROPERTY_NAME} &ndash; the number of
+ * failures after which the remaining specifications and examples are
+ * skipped;</li>
+ * <li>{@value #PARALLEL_ENABLED_PROPERTY_NAME} &ndash; whether to run
+ * the specifications in parallel. The parallelism is configured with
+ * the parameters prefixed with {@value #PARALLEL_CONFIG_PREFIX}, the
+ * same way as for JUnit Jupiter. The examples of a specification run
+ * in parallel only when {@link #examplesIndependent(Class)} says so,
+ * and the specifications that lock the same resources with
+ * {@link ConcordionResourceLock} do not run at the same time.
+ * </li>
+ * <li>{@value #PARALLEL_EXECUTOR_PROPERTY_NAME} &ndash; either
+ * {@code fork-join} (the default) to run in a pool sized to the
+ * available processors, or {@code virtual} to run each specification
+ * in a virtual thread, see
+ * {@link VirtualThreadHierarchicalTestExecutorService}. The number of
+ * specifications running at once in virtual threads is limited by
+ * {@value #PARALLEL_MAX_CONCURRENCY_PROPERTY_NAME}, 256 by default.
+ * </li>
+ * </ul>
  */
 public abstract class BaseConcordionTestEngine extends
     HierarchicalTestEngine<ConcordionEngineExecutionContext> {
+    /** The configuration parameter for the timings file. */
+    public static final String TIMINGS_FILE_PROPERTY_NAME =
+        "concordion.timings.file";
+
+    /** The configuration parameter for the number of shards. */
+    public static final String SHARD_COUNT_PROPERTY_NAME =
+        "concordion.shard.count";
+
+    /** The configuration parameter for the index of the shard to run. */
+    public static final String SHARD_INDEX_PROPERTY_NAME =
+        "concordion.shard.index";
+
+    /** The configuration parameter for the changes file. */
+    public static final String CHANGES_FILE_PROPERTY_NAME =
+        "concordion.changes.file";
+
+    /** The configuration parameter for the number of failures to stop. */
+    public static final String FAIL_FAST_THRESHOLD_PROPERTY_NAME =
+        "concordion.failfast.threshold";
+
+    /** The configuration parameter to enable parallel execution. */
+    public static final String PARALLEL_ENABLED_PROPERTY_NAME =
+        "concordion.execution.parallel.enabled";
+
+    /** The prefix of the parallel execution configuration parameters. */
+    public static final String PARALLEL_CONFIG_PREFIX =
+        "concordion.execution.parallel.config.";
+
+    /** The configuration parameter for the parallel executor type. */
+    public static final String PARALLEL_EXECUTOR_PROPERTY_NAME =
+        "concordion.execution.parallel.executor";
+
+    /** The configuration parameter for the virtual thread concurrency. */
+    public static final String PARALLEL_MAX_CONCURRENCY_PROPERTY_NAME =
+        "concordion.execution.parallel.max-concurrency";
+
+    private static final int DEFAULT_MAX_CONCURRENCY = 256;
+
     private static final String FIXTURE_PATTERN = ".*(Fixture|Test)$";
 
     /**
@@ -82,12 +182,26 @@ public static TestDescriptor createRoot(UniqueId id)
     private final Map<Class<?>, SpecificationDescriptor> cache =
         new HashMap<>();
 
+    private volatile SpecificationTimings timings = SpecificationTimings.NONE;
+
+    private volatile SpecificationChanges changes = SpecificationChanges.NONE;
+
+    private volatile int failFastThreshold;
+
+    private final AtomicInteger failures = new AtomicInteger();
+
+    private final Set<Class<?>> incomplete = ConcurrentHashMap.newKeySet();
+
     /**
      * Discover tests according to the supplied
      * {@linkplain EngineDiscoveryRequest discovery request}.
      * This implementation supports
      * {@linkplain ClassSelector class selectors} and
-     * {@linkplain PackageSelector package selectors}.
+     * {@linkplain PackageSelector package selectors}. When sharding is
+     * configured, only the specifications of the selected shard are
+     * discovered. When change tracking is configured, only the changed
+     * specifications are discovered. The specifications are ordered by
+     * their recorded durations, longest first.
      *
      * @param request the discovery request
      * @param id the unique ID to be used for this test engine's
@@ -101,18 +215,31 @@ public TestDescriptor discover(EngineDiscoveryRequest request,
     {
         var root = createRoot(id);
         var locator = new ClassNameBasedSpecificationLocator();
+        var config = request.getConfigurationParameters();
+
+        timings = config.get(TIMINGS_FILE_PROPERTY_NAME)
+            .map(file -> SpecificationTimings.load(Path.of(file)))
+            .orElse(SpecificationTimings.NONE);
+        changes = config.get(CHANGES_FILE_PROPERTY_NAME)
+            .map(file -> SpecificationChanges.load(Path.of(file)))
+            .orElse(SpecificationChanges.NONE);
 
         fixtureStream(request)
             .map(this::adjustClass)
             .filter(this::annotatedAsFixture)
             .forEach(fixture -> append(root, fixture, locator));
 
+        selectChanged(root);
+        selectShard(root, config);
+        orderByDuration(root);
+
         return root;
     }
 
     /**
      * Create the initial execution context for executing the supplied
-     * {@linkplain ExecutionRequest request}.
+     * {@linkplain ExecutionRequest request}. This implementation also
+     * resets the failure count used to fail fast.
      *
      * @param request the request about to be executed
      * @return the initial context that will be passed to nodes in
@@ -122,9 +249,68 @@ public TestDescriptor discover(EngineDiscoveryRequest request,
     protected ConcordionEngineExecutionContext createExecutionContext(
         ExecutionRequest request)
     {
+        var threshold = request.getConfigurationParameters()
+            .get(FAIL_FAST_THRESHOLD_PROPERTY_NAME, Integer::parseInt)
+            .orElse(0);
+
+        if (threshold < 0)
+            throw new IllegalArgumentException("'" +
+                FAIL_FAST_THRESHOLD_PROPERTY_NAME +
+                "' must not be negative, was: " + threshold);
+
+        failFastThreshold = threshold;
+        failures.set(0);
+        incomplete.clear();
+
         return new ConcordionEngineExecutionContext(request);
     }
 
+    /**
+     * Create the executor service to execute the supplied
+     * {@linkplain ExecutionRequest request} with. This implementation
+     * uses a {@link ForkJoinPoolHierarchicalTestExecutorService} or
+     * a {@link VirtualThreadHierarchicalTestExecutorService} when
+     * parallel execution is enabled, and executes everything in the
+     * same thread otherwise. The recorded timings and changes are
+     * stored once the executor service is closed, after everything is
+     * executed.
+     *
+     * @param request the request about to be executed
+     * @return the executor service
+     */
+    @Override
+    protected HierarchicalTestExecutorService createExecutorService(
+        ExecutionRequest request)
+    {
+        return new StoringExecutorService(newExecutorService(request));
+    }
+
+    private HierarchicalTestExecutorService newExecutorService(
+        ExecutionRequest request)
+    {
+        var config = request.getConfigurationParameters();
+
+        if (!config.getBoolean(PARALLEL_ENABLED_PROPERTY_NAME).orElse(false))
+            return super.createExecutorService(request);
+
+        var executor = config.get(PARALLEL_EXECUTOR_PROPERTY_NAME)
+            .orElse("fork-join");
+
+        if ("fork-join".equals(executor))
+            return new ForkJoinPoolHierarchicalTestExecutorService(
+                new PrefixedConfigurationParameters(config,
+                    PARALLEL_CONFIG_PREFIX));
+
+        if ("virtual".equals(executor))
+            return new VirtualThreadHierarchicalTestExecutorService(config
+                .get(PARALLEL_MAX_CONCURRENCY_PROPERTY_NAME, Integer::parseInt)
+                .orElse(DEFAULT_MAX_CONCURRENCY));
+
+        throw new IllegalArgumentException("'" +
+            PARALLEL_EXECUTOR_PROPERTY_NAME +
+            "' must be either 'fork-join' or 'virtual', was: " + executor);
+    }
+
     /**
      * Potentially adjust the class of the fixture, for example,
      * it can use a different class loader if needed. The default
@@ -212,6 +398,45 @@ protected Object createFixtureObject()
                 return BaseConcordionTestEngine.this
                     .createFixtureObject(getFixtureClass());
             }
+
+            @Override
+            public Set<ExclusiveResource> getExclusiveResources()
+            {
+                return exclusiveResources(getFixtureClass());
+            }
+
+            @Override
+            public void around(ConcordionEngineExecutionContext context,
+                Invocation<ConcordionEngineExecutionContext> invocation)
+                throws Exception
+            {
+                var start = System.nanoTime();
+
+                try {
+                    super.around(context, invocation);
+                } finally {
+                    timings.record(getFixtureClass().getName(),
+                        Duration.ofNanos(System.nanoTime() - start));
+                }
+            }
+
+            @Override
+            public SkipResult shouldBeSkipped(
+                ConcordionEngineExecutionContext context) throws Exception
+            {
+                var skip = failFast(getFixtureClass());
+
+                return skip.isSkipped() ? skip :
+                    super.shouldBeSkipped(context);
+            }
+
+            @Override
+            public void nodeFinished(ConcordionEngineExecutionContext context,
+                TestDescriptor descriptor, TestExecutionResult result)
+            {
+                super.nodeFinished(context, descriptor, result);
+                specificationFinished(getFixtureClass(), result);
+            }
         };
     }
 
@@ -228,7 +453,232 @@ protected ExampleDescriptor exampleDescriptor(UniqueId parentId,
     {
         var id = parentId.append(ExampleDescriptor.SEGMENT_TYPE, example);
 
-        return new ExampleDescriptor(id, fixture, example);
+        return new ExampleDescriptor(id, fixture, example) {
+            @Override
+            public void around(ConcordionEngineExecutionContext context,
+                Invocation<ConcordionEngineExecutionContext> invocation)
+                throws Exception
+            {
+                var start = System.nanoTime();
+
+                try {
+                    super.around(context, invocation);
+                } finally {
+                    timings.record(exampleKey(fixture, example),
+                        Duration.ofNanos(System.nanoTime() - start));
+                }
+            }
+
+            @Override
+            public ExecutionMode getExecutionMode()
+            {
+                return examplesIndependent(fixture) ?
+                    ExecutionMode.CONCURRENT : ExecutionMode.SAME_THREAD;
+            }
+
+            @Override
+            public SkipResult shouldBeSkipped(
+                ConcordionEngineExecutionContext context) throws Exception
+            {
+                var skip = failFast(fixture);
+
+                return skip.isSkipped() ? skip :
+                    super.shouldBeSkipped(context);
+            }
+
+            @Override
+            public void nodeFinished(ConcordionEngineExecutionContext context,
+                TestDescriptor descriptor, TestExecutionResult result)
+            {
+                super.nodeFinished(context, descriptor, result);
+                exampleFinished(fixture, result);
+            }
+        };
+    }
+
+    /**
+     * Remove the specifications that have not changed since they last
+     * passed from the root descriptor.
+     *
+     * @param root the root descriptor
+     */
+    private void selectChanged(TestDescriptor root)
+    {
+        for (var child: new ArrayList<>(root.getChildren()))
+            if (child instanceof SpecificationDescriptor spec &&
+                !changes.isChanged(spec.getFixtureClass()))
+                root.removeChild(child);
+    }
+
+    /**
+     * Check if the failure threshold has been reached. The examples
+     * skipped because of it make their specification incomplete, so
+     * it is not recorded as passed.
+     *
+     * @param fixture the fixture class
+     * @return the skip result
+     */
+    private SkipResult failFast(Class<?> fixture)
+    {
+        var threshold = failFastThreshold;
+
+        if (threshold == 0 || failures.get() < threshold)
+            return SkipResult.doNotSkip();
+
+        incomplete.add(fixture);
+
+        return SkipResult.skip("fail-fast threshold of " + threshold +
+            " failure(s) reached");
+    }
+
+    private void exampleFinished(Class<?> fixture, TestExecutionResult result)
+    {
+        if (result.getStatus() == Status.FAILED)
+            failures.incrementAndGet();
+
+        if (result.getStatus() != Status.SUCCESSFUL)
+            incomplete.add(fixture);
+    }
+
+    private void specificationFinished(Class<?> fixture,
+        TestExecutionResult result)
+    {
+        var complete = !incomplete.remove(fixture);
+
+        if (result.getStatus() == Status.FAILED)
+            failures.incrementAndGet();
+
+        if (complete && result.getStatus() == Status.SUCCESSFUL)
+            changes.recordPassed(fixture);
+        else
+            changes.recordFailed(fixture);
+    }
+
+    /**
+     * Remove the specifications that do not belong to the configured
+     * shard from the root descriptor. The specifications are assigned
+     * to the shards longest first, each to the shard with the least
+     * total duration so far, so that every shard gets about the same
+     * total duration. The specifications without recorded duration are
+     * assumed to take the average duration. The assignment only
+     * depends on the recorded durations and the discovered
+     * specifications, so it is the same on every node.
+     *
+     * @param root the root descriptor
+     * @param config the configuration parameters
+     */
+    private void selectShard(TestDescriptor root,
+        ConfigurationParameters config)
+    {
+        var count = config.get(SHARD_COUNT_PROPERTY_NAME, Integer::parseInt)
+            .orElse(1);
+        var index = config.get(SHARD_INDEX_PROPERTY_NAME, Integer::parseInt)
+            .orElse(0);
+
+        if (count < 1)
+            throw new IllegalArgumentException("'" +
+                SHARD_COUNT_PROPERTY_NAME + "' must be positive, was: " +
+                count);
+
+        if (index < 0 || index >= count)
+            throw new IllegalArgumentException("'" +
+                SHARD_INDEX_PROPERTY_NAME + "' must be between 0 and " +
+                (count - 1) + ", was: " + index);
+
+        if (count == 1)
+            return;
+
+        var estimates = estimateDurations(root);
+        var specs = new ArrayList<>(estimates.keySet());
+
+        specs.sort(Comparator.<TestDescriptor>comparingLong(estimates::get)
+            .reversed()
+            .thenComparing(spec -> spec.getUniqueId().toString()));
+
+        var loads = new long[count];
+
+        for (var spec: specs) {
+            var shard = 0;
+
+            for (var i = 1; i < count; i++)
+                if (loads[i] < loads[shard])
+                    shard = i;
+
+            loads[shard] += estimates.get(spec);
+
+            if (shard != index)
+                root.removeChild(spec);
+        }
+    }
+
+    /**
+     * Order the specifications of the root descriptor by their
+     * estimated durations, longest first. This way the longest
+     * specifications are started first, and the shorter ones fill
+     * the gaps at the end of a parallel run. The specifications with
+     * the same estimate keep the discovery order.
+     *
+     * @param root the root descriptor
+     */
+    private void orderByDuration(TestDescriptor root)
+    {
+        var estimates = estimateDurations(root);
+
+        root.orderChildren(children -> {
+            var ordered = new ArrayList<>(children);
+
+            ordered.sort(Comparator.<TestDescriptor>comparingLong(
+                estimates::get).reversed());
+
+            return ordered;
+        });
+    }
+
+    private Map<TestDescriptor, Long> estimateDurations(TestDescriptor root)
+    {
+        var recorded = new HashMap<TestDescriptor, OptionalLong>();
+
+        for (var child: root.getChildren())
+            recorded.put(child, recordedDuration(child));
+
+        var average = (long) recorded.values().stream()
+            .filter(OptionalLong::isPresent)
+            .mapToLong(duration -> Math.max(1, duration.getAsLong()))
+            .average()
+            .orElse(1);
+        var estimates = new HashMap<TestDescriptor, Long>();
+
+        recorded.forEach((spec, duration) -> estimates.put(spec,
+            Math.max(1, duration.orElse(average))));
+
+        return estimates;
+    }
+
+    private OptionalLong recordedDuration(TestDescriptor descriptor)
+    {
+        if (!(descriptor instanceof SpecificationDescriptor spec))
+            return OptionalLong.empty();
+
+        var fixture = spec.getFixtureClass();
+        var duration = timings.get(fixture.getName());
+
+        if (duration.isPresent())
+            return duration;
+
+        var examples = spec.getChildren().stream()
+            .map(example -> timings.get(exampleKey(fixture,
+                example.getUniqueId().getLastSegment().getValue())))
+            .filter(OptionalLong::isPresent)
+            .mapToLong(OptionalLong::getAsLong)
+            .toArray();
+
+        return examples.length == 0 ? OptionalLong.empty() :
+            OptionalLong.of(Arrays.stream(examples).sum());
+    }
+
+    private static String exampleKey(Class<?> fixture, String example)
+    {
+        return fixture.getName() + "#" + example;
     }
 
     /**
@@ -247,4 +697,81 @@ protected ExampleDescriptor exampleDescriptor(UniqueId parentId,
      * @return a fixture instance
      */
     protected abstract Object createFixtureObject(Class<?> clazz);
+
+    /**
+     * Determine the shared resources the specification of the fixture
+     * needs exclusive access to. The default implementation maps the
+     * {@link ConcordionResourceLock @ConcordionResourceLock} annotations
+     * of the fixture class. Override to declare the resources
+     * differently.
+     *
+     * @param clazz the class of the fixture
+     * @return the exclusive resources, possibly empty
+     */
+    protected Set<ExclusiveResource> exclusiveResources(Class<?> clazz)
+    {
+        return findRepeatableAnnotations(clazz, ConcordionResourceLock.class)
+            .stream()
+            .map(lock -> new ExclusiveResource(lock.value(), lock.mode()))
+            .collect(Collectors.toCollection(LinkedHashSet::new));
+    }
+
+    /**
+     * Check if the examples of the fixture are independent of each
+     * other, so they can be executed concurrently when parallel
+     * execution is enabled. The default implementation returns
+     * {@code false}, so the examples are executed one by one in the
+     * document order. Override to allow concurrent examples. Each
+     * example is executed with the fixture object created for it by
+     * {@link #createFixtureObject(Class)}, and Concordion marks its
+     * results in the elements of the example in the shared
+     * specification document, which is written once all examples have
+     * finished.
+     *
+     * @param clazz the class of the fixture
+     * @return {@code true} if the examples can be executed concurrently,
+     * {@code false} otherwise
+     */
+    protected boolean examplesIndependent(Class<?> clazz)
+    {
+        return false;
+    }
+
+    /**
+     * An executor service that stores the recorded timings and changes
+     * when closed. A failure to store them does not affect the results
+     * of the executed tests.
+     */
+    private final class StoringExecutorService
+        implements HierarchicalTestExecutorService {
+        private final HierarchicalTestExecutorService delegate;
+
+        StoringExecutorService(HierarchicalTestExecutorService delegate)
+        {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public Future<Void> submit(TestTask testTask)
+        {
+            return delegate.submit(testTask);
+        }
+
+        @Override
+        public void invokeAll(List<? extends TestTask> testTasks)
+        {
+            delegate.invokeAll(testTasks);
+        }
+
+        @Override
+        public void close()
+        {
+            try {
+                delegate.close();
+            } finally {
+                timings.store();
+                changes.store();
+            }
+        }
+    }
 }
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2025 Alexei Yashkov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.concordion.integration.junit.platform.engine;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Repeatable;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+import org.junit.platform.engine.support.hierarchical.ExclusiveResource.LockMode;
+
+/**
+ * An annotation to declare that the specification of a Concordion
+ * fixture needs access to a shared resource, such as a database or a
+ * queue. When the specifications run in parallel, the specifications
+ * locking the same resource in the
+ * {@linkplain LockMode#READ_WRITE read-write} mode never run at the
+ * same time, while the ones locking it in the
+ * {@linkplain LockMode#READ read} mode may run together.
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@Inherited
+@Documented
+@Repeatable(ConcordionResourceLocks.class)
+public @interface ConcordionResourceLock {
+    /**
+     * The key of the shared resource.
+     *
+     * @return the resource key
+     */
+    String value();
+
+    /**
+     * The mode to lock the resource in.
+     *
+     * @return the lock mode
+     */
+    LockMode mode() default LockMode.READ_WRITE;
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2025 Alexei Yashkov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.concordion.integration.junit.platform.engine;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+
+/**
+ * Reads and writes the state the engine keeps between test runs as
+ * properties files. The files are written sorted by key, so they are
+ * stable and can be compared, cached, or committed as needed.
+ */
+final class PropertiesFile {
+    private PropertiesFile()
+    {
+    }
+
+    /**
+     * Loads the entries from the file. A missing or unreadable file
+     * gives no entries.
+     *
+     * @param file the file to read
+     * @return the loaded entries
+     */
+    static Map<String, String> load(Path file)
+    {
+        var entries = new HashMap<String, String>();
+
+        if (!Files.isReadable(file))
+            return entries;
+
+        var properties = new Properties();
+
+        try (var in = Files.newBufferedReader(file)) {
+            properties.load(in);
+        } catch (IOException | IllegalArgumentException ex) {
+            return entries;
+        }
+
+        for (var key: properties.stringPropertyNames())
+            entries.put(key, properties.getProperty(key).trim());
+
+        return entries;
+    }
+
+    /**
+     * Stores the entries to the file. The file is replaced atomically,
+     * so a concurrent reader never sees a partially written file.
+     *
+     * @param file the file to write
+     * @param comment the comment to put on the first line
+     * @param entries the entries to store
+     */
+    static void store(Path file, String comment, Map<String, ?> entries)
+    {
+        var content = new StringBuilder("# ").append(comment).append('\n');
+
+        new TreeMap<>(entries).forEach((key, value) -> content
+            .append(escape(key)).append('=').append(value).append('\n'));
+
+        try {
+            var parent = file.toAbsolutePath().getParent();
+
+            Files.createDirectories(parent);
+
+            var temp = Files.createTempFile(parent, file.getFileName()
+                .toString(), ".tmp");
+
+            Files.writeString(temp, content);
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("unable to store " + file, ex);
+        }
+    }
+
+    private static String escape(String key)
+    {
+        return key.replaceAll("([\\\\:= #!])", "\\\\$1");
+    }
+}
@@ -0,0 +1,256 @@
+/*
+ * Copyright 2025 Alexei Yashkov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.concordion.integration.junit.platform.engine;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The content hashes of specifications that passed in previous test
+ * runs. The hash of a specification covers the fixture class with its
+ * superclasses, the specification document, and all specifications
+ * linked from it with the {@code run} command, transitively. A
+ * specification is considered changed when its hash is different from
+ * the recorded one, or it has not passed yet. The hashes are stored in
+ * a properties file, mapping the fixture class name to the hash, once
+ * the execution finishes.
+ */
+class SpecificationChanges {
+    /** The changes that consider every specification changed. */
+    static final SpecificationChanges NONE = new SpecificationChanges(null);
+
+    private static final String[] TYPES = { "html", "md" };
+
+    private static final Pattern HTML_RUN = Pattern.compile(
+        "<a\\s[^>]*?:run\\s*=[^>]*>", Pattern.CASE_INSENSITIVE);
+
+    private static final Pattern HREF = Pattern.compile(
+        "\\shref\\s*=\\s*(?:\"([^\"]*)\"|'([^']*)')",
+        Pattern.CASE_INSENSITIVE);
+
+    private static final Pattern MARKDOWN_RUN = Pattern.compile(
+        "]\\(([^)\\s]+)\\s+\"c:run(?:=[^\"]*)?\"\\)");
+
+    private final Path file;
+
+    private final Map<String, String> passed = new ConcurrentHashMap<>();
+
+    private final Map<String, String> current = new ConcurrentHashMap<>();
+
+    private SpecificationChanges(Path file)
+    {
+        this.file = file;
+    }
+
+    /**
+     * Loads the hashes from the file. A missing or unreadable file
+     * gives no hashes, so every specification is considered changed.
+     *
+     * @param file the state file
+     * @return the loaded changes
+     */
+    static SpecificationChanges load(Path file)
+    {
+        var changes = new SpecificationChanges(file);
+
+        changes.passed.putAll(PropertiesFile.load(file));
+
+        return changes;
+    }
+
+    /**
+     * Checks if the specification of the fixture has changed since it
+     * last passed.
+     *
+     * @param fixture the fixture class
+     * @return {@code true} if the specification has to be run,
+     * {@code false} otherwise
+     */
+    boolean isChanged(Class<?> fixture)
+    {
+        if (file == null)
+            return true;
+
+        var hash = hash(fixture);
+
+        current.put(fixture.getName(), hash);
+
+        return !hash.equals(passed.get(fixture.getName()));
+    }
+
+    /**
+     * Records that the specification of the fixture has passed.
+     *
+     * @param fixture the fixture class
+     */
+    void recordPassed(Class<?> fixture)
+    {
+        var hash = current.get(fixture.getName());
+
+        if (file == null || hash == null)
+            return;
+
+        passed.put(fixture.getName(), hash);
+    }
+
+    /**
+     * Records that the specification of the fixture has failed, so it
+     * is run next time even if it does not change.
+     *
+     * @param fixture the fixture class
+     */
+    void recordFailed(Class<?> fixture)
+    {
+        if (file != null)
+            passed.remove(fixture.getName());
+    }
+
+    /**
+     * Stores all hashes to the file. A failure to store them is ignored,
+     * so the unchanged specifications are just run again next time.
+     */
+    synchronized void store()
+    {
+        if (file == null)
+            return;
+
+        try {
+            PropertiesFile.store(file, "Concordion passed specifications",
+                passed);
+        } catch (UncheckedIOException ex) {
+            // keep the previous hashes
+        }
+    }
+
+    private String hash(Class<?> fixture)
+    {
+        var digest = digest();
+        var loader = fixture.getClassLoader();
+
+        for (var type = fixture; type != null &&
+            type.getClassLoader() == loader; type = type.getSuperclass())
+            update(digest, loader, type.getName().replace('.', '/') +
+                ".class");
+
+        var base = fixture.getName().replace('.', '/')
+            .replaceAll("(Fixture|Test)$", "");
+
+        for (var type: TYPES)
+            if (loader.getResource(base + "." + type) != null) {
+                updateLinked(digest, loader, base + "." + type);
+                break;
+            }
+
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private void updateLinked(MessageDigest digest, ClassLoader loader,
+        String spec)
+    {
+        var visited = new TreeSet<String>();
+        var queue = new ArrayDeque<String>();
+
+        queue.add(spec);
+
+        while (!queue.isEmpty()) {
+            var path = queue.remove();
+
+            if (!visited.add(path))
+                continue;
+
+            var content = update(digest, loader, path);
+
+            if (content == null)
+                continue;
+
+            var text = new String(content, StandardCharsets.UTF_8);
+
+            if (path.endsWith(".md"))
+                for (var links = MARKDOWN_RUN.matcher(text); links.find();)
+                    enqueue(queue, path, links.group(1));
+            else
+                for (var links = HTML_RUN.matcher(text); links.find();) {
+                    var href = HREF.matcher(links.group());
+
+                    if (href.find())
+                        enqueue(queue, path, value(href));
+                }
+        }
+    }
+
+    private void enqueue(ArrayDeque<String> queue, String path, String href)
+    {
+        try {
+            var link = URI.create("/" + path).resolve(href);
+
+            if (link.getScheme() == null && link.getPath() != null)
+                queue.add(link.getPath().substring(1));
+        } catch (IllegalArgumentException ex) {
+            // not a specification link
+        }
+    }
+
+    private String value(Matcher matcher)
+    {
+        return matcher.group(1) != null ? matcher.group(1) :
+            matcher.group(2);
+    }
+
+    private byte[] update(MessageDigest digest, ClassLoader loader,
+        String path)
+    {
+        digest.update(path.getBytes(StandardCharsets.UTF_8));
+
+        try (var in = loader.getResourceAsStream(path)) {
+            if (in == null) {
+                digest.update((byte)0);
+
+                return null;
+            }
+
+            var content = in.readAllBytes();
+
+            digest.update((byte)1);
+            digest.update(content);
+
+            return content;
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private MessageDigest digest()
+    {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+}
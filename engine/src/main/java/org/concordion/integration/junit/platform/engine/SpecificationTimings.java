@@ -0,0 +1,112 @@
+/*
+ * Copyright 2025 Alexei Yashkov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.concordion.integration.junit.platform.engine;
+
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The durations of specifications recorded by previous test runs. The
+ * durations are stored in a properties file, mapping a key (normally,
+ * the fixture class name) to the duration in milliseconds. The durations
+ * are recorded in memory and stored once, when the execution finishes.
+ * The durations of the specifications that are not run keep their
+ * recorded values.
+ */
+class SpecificationTimings {
+    /** The timings that are neither loaded nor stored. */
+    static final SpecificationTimings NONE = new SpecificationTimings(null);
+
+    private final Path file;
+
+    private final Map<String, Long> durations = new ConcurrentHashMap<>();
+
+    private SpecificationTimings(Path file)
+    {
+        this.file = file;
+    }
+
+    /**
+     * Loads the timings from the file. A missing or unreadable file
+     * gives empty timings, that are stored to the same file.
+     *
+     * @param file the timings file
+     * @return the loaded timings
+     */
+    static SpecificationTimings load(Path file)
+    {
+        var timings = new SpecificationTimings(file);
+
+        PropertiesFile.load(file).forEach((key, value) -> {
+            try {
+                timings.durations.put(key, Long.parseLong(value));
+            } catch (NumberFormatException ex) {
+                // ignore malformed entries
+            }
+        });
+
+        return timings;
+    }
+
+    /**
+     * Returns the recorded duration.
+     *
+     * @param key the key of the duration
+     * @return the duration in milliseconds, or empty if not recorded
+     */
+    OptionalLong get(String key)
+    {
+        var duration = durations.get(key);
+
+        return duration == null ? OptionalLong.empty() :
+            OptionalLong.of(duration);
+    }
+
+    /**
+     * Records the duration.
+     *
+     * @param key the key of the duration
+     * @param duration the duration
+     */
+    void record(String key, Duration duration)
+    {
+        if (file == null)
+            return;
+
+        durations.put(key, duration.toMillis());
+    }
+
+    /**
+     * Stores all timings to the file. A failure to store them is
+     * ignored, as the timings only affect the order of the next runs.
+     */
+    synchronized void store()
+    {
+        if (file == null)
+            return;
+
+        try {
+            PropertiesFile.store(file, "Concordion durations, ms", durations);
+        } catch (UncheckedIOException ex) {
+            // keep the previous timings
+        }
+    }
+}
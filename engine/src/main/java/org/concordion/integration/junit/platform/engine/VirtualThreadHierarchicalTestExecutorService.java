@@ -0,0 +1,179 @@
+/*
+ * Copyright 2025 Alexei Yashkov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.concordion.integration.junit.platform.engine;
+
+import static org.junit.platform.engine.support.hierarchical.Node.ExecutionMode.CONCURRENT;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+import org.junit.platform.engine.support.hierarchical.HierarchicalTestExecutorService;
+
+/**
+ * A {@link HierarchicalTestExecutorService} that executes each
+ * concurrent test task in its own virtual thread. It suits the
+ * specifications that mostly wait for I/O, e.g. calls to the system
+ * under test, as hundreds of them can run at once without tying up
+ * platform threads. The number of tasks executing at the same time is
+ * limited by the given maximum concurrency. A task waiting for its
+ * children does not count towards the limit.
+ *
+ * <p>On Java runtimes without virtual threads, platform threads are
+ * used instead.</p>
+ */
+public class VirtualThreadHierarchicalTestExecutorService
+    implements HierarchicalTestExecutorService {
+    private final ExecutorService executor = newExecutor();
+
+    private final Semaphore permits;
+
+    private final ThreadLocal<Boolean> holdsPermit = new ThreadLocal<>();
+
+    /**
+     * Creates a new {@link VirtualThreadHierarchicalTestExecutorService}.
+     *
+     * @param maxConcurrency the maximum number of tasks executing at
+     * the same time
+     */
+    public VirtualThreadHierarchicalTestExecutorService(int maxConcurrency)
+    {
+        if (maxConcurrency < 1)
+            throw new IllegalArgumentException(
+                "maximum concurrency must be positive, was: " +
+                    maxConcurrency);
+
+        permits = new Semaphore(maxConcurrency, true);
+    }
+
+    /**
+     * Submits the task to be executed in a new thread.
+     *
+     * @param testTask the task to execute
+     * @return the future to wait for the completion of the task
+     */
+    @Override
+    public Future<Void> submit(TestTask testTask)
+    {
+        return CompletableFuture.runAsync(() -> executeWithPermit(testTask),
+            executor);
+    }
+
+    /**
+     * Executes the tasks and waits for their completion. The concurrent
+     * tasks are executed in new threads, the rest are executed one by
+     * one in the calling thread.
+     *
+     * @param testTasks the tasks to execute
+     */
+    @Override
+    public void invokeAll(List<? extends TestTask> testTasks)
+    {
+        var futures = new ArrayList<Future<Void>>();
+
+        for (var task: testTasks)
+            if (task.getExecutionMode() == CONCURRENT)
+                futures.add(submit(task));
+
+        for (var task: testTasks)
+            if (task.getExecutionMode() != CONCURRENT)
+                execute(task);
+
+        if (!futures.isEmpty())
+            await(futures);
+    }
+
+    /**
+     * Shuts the executor down.
+     */
+    @Override
+    public void close()
+    {
+        executor.shutdownNow();
+    }
+
+    private void executeWithPermit(TestTask task)
+    {
+        permits.acquireUninterruptibly();
+        holdsPermit.set(true);
+
+        try {
+            execute(task);
+        } finally {
+            holdsPermit.remove();
+            permits.release();
+        }
+    }
+
+    private void execute(TestTask task)
+    {
+        try (var lock = task.getResourceLock().acquire()) {
+            task.execute();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+
+            throw new IllegalStateException(
+                "interrupted while acquiring resource lock", ex);
+        }
+    }
+
+    private void await(List<Future<Void>> futures)
+    {
+        var holding = holdsPermit.get() != null;
+
+        if (holding)
+            permits.release();
+
+        try {
+            for (var future: futures)
+                future.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+
+            throw new IllegalStateException(
+                "interrupted while waiting for tasks", ex);
+        } catch (ExecutionException ex) {
+            throw new IllegalStateException("test task failed",
+                ex.getCause());
+        } finally {
+            if (holding)
+                permits.acquireUninterruptibly();
+        }
+    }
+
+    private static ExecutorService newExecutor()
+    {
+        try {
+            return (ExecutorService)Executors.class
+                .getMethod("newVirtualThreadPerTaskExecutor")
+                .invoke(null);
+        } catch (ReflectiveOperationException ex) {
+            return Executors.newCachedThreadPool(task -> {
+                var thread = new Thread(task, "concordion-worker");
+
+                thread.setDaemon(true);
+
+                return thread;
+            });
+        }
+    }
+}
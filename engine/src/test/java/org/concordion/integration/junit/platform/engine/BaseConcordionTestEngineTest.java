@@ -0,0 +1,98 @@
+/*
+ * Copyright 2025 Alexei Yashkov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.concordion.integration.junit.platform.engine;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.concordion.integration.junit.platform.engine.BaseConcordionTestEngine.PARALLEL_ENABLED_PROPERTY_NAME;
+import static org.concordion.integration.junit.platform.engine.BaseConcordionTestEngine.PARALLEL_EXECUTOR_PROPERTY_NAME;
+import static org.concordion.integration.junit.platform.engine.BaseConcordionTestEngine.PARALLEL_MAX_CONCURRENCY_PROPERTY_NAME;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.engine.ConfigurationParameters;
+import org.junit.platform.engine.ExecutionRequest;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoSettings;
+
+@MockitoSettings(strictness = org.mockito.quality.Strictness.LENIENT)
+class BaseConcordionTestEngineTest {
+    private final BaseConcordionTestEngine engine = new StubEngine();
+
+    @Mock
+    private ExecutionRequest request;
+
+    @Mock
+    private ConfigurationParameters config;
+
+    @BeforeEach
+    void setUp()
+    {
+        doReturn(config).when(request).getConfigurationParameters();
+        doReturn(Optional.of(true)).when(config)
+            .getBoolean(PARALLEL_ENABLED_PROPERTY_NAME);
+    }
+
+    @Test
+    void rejectsUnknownExecutor()
+    {
+        doReturn(Optional.of("threads")).when(config)
+            .get(PARALLEL_EXECUTOR_PROPERTY_NAME);
+
+        assertThatThrownBy(() -> engine.createExecutorService(request))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("'" + PARALLEL_EXECUTOR_PROPERTY_NAME +
+                "' must be either 'fork-join' or 'virtual', was: threads");
+    }
+
+    @Test
+    void rejectsNonPositiveMaxConcurrency()
+    {
+        doReturn(Optional.of("virtual")).when(config)
+            .get(PARALLEL_EXECUTOR_PROPERTY_NAME);
+        doReturn(Optional.of(0)).when(config)
+            .get(eq(PARALLEL_MAX_CONCURRENCY_PROPERTY_NAME), any());
+
+        assertThatThrownBy(() -> engine.createExecutorService(request))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("maximum concurrency must be positive, was: 0");
+    }
+
+    private static class StubEngine extends BaseConcordionTestEngine {
+        @Override
+        public String getId()
+        {
+            return "concordion-test";
+        }
+
+        @Override
+        protected boolean annotatedAsFixture(Class<?> clazz)
+        {
+            return true;
+        }
+
+        @Override
+        protected Object createFixtureObject(Class<?> clazz)
+        {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
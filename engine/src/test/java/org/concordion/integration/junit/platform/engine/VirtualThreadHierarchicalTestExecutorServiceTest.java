@@ -0,0 +1,156 @@
+/*
+ * Copyright 2025 Alexei Yashkov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.concordion.integration.junit.platform.engine;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.platform.engine.support.hierarchical.Node.ExecutionMode.CONCURRENT;
+import static org.junit.platform.engine.support.hierarchical.Node.ExecutionMode.SAME_THREAD;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.engine.support.hierarchical.HierarchicalTestExecutorService.TestTask;
+import org.junit.platform.engine.support.hierarchical.Node.ExecutionMode;
+import org.junit.platform.engine.support.hierarchical.ResourceLock;
+
+class VirtualThreadHierarchicalTestExecutorServiceTest {
+    private static final int MAX_CONCURRENCY = 2;
+
+    private final VirtualThreadHierarchicalTestExecutorService service =
+        new VirtualThreadHierarchicalTestExecutorService(MAX_CONCURRENCY);
+
+    @AfterEach
+    void tearDown()
+    {
+        service.close();
+    }
+
+    @Test
+    void rejectsNonPositiveMaxConcurrency()
+    {
+        assertThatThrownBy(() ->
+            new VirtualThreadHierarchicalTestExecutorService(0))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("maximum concurrency must be positive, was: 0");
+        assertThatThrownBy(() ->
+            new VirtualThreadHierarchicalTestExecutorService(-1))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("maximum concurrency must be positive, was: -1");
+    }
+
+    @Test
+    void limitsNumberOfTasksExecutingAtOnce()
+    {
+        var barrier = new CyclicBarrier(MAX_CONCURRENCY);
+        var executing = new AtomicInteger();
+        var maxExecuting = new AtomicInteger();
+        var tasks = new ArrayList<TestTask>();
+
+        for (var i = 0; i < 3 * MAX_CONCURRENCY; i++)
+            tasks.add(task(CONCURRENT, () -> {
+                maxExecuting.accumulateAndGet(executing.incrementAndGet(),
+                    Math::max);
+                barrier.await(10, TimeUnit.SECONDS);
+                executing.decrementAndGet();
+            }));
+
+        service.invokeAll(tasks);
+
+        assertThat(maxExecuting).hasValue(MAX_CONCURRENCY);
+    }
+
+    @Test
+    void releasesPermitWhileWaitingForChildren() throws Exception
+    {
+        var single = new VirtualThreadHierarchicalTestExecutorService(1);
+        var executed = new AtomicInteger();
+        var children = List.of(
+            task(CONCURRENT, executed::incrementAndGet),
+            task(CONCURRENT, executed::incrementAndGet));
+
+        try {
+            single.submit(task(CONCURRENT, () -> single.invokeAll(children)))
+                .get(10, TimeUnit.SECONDS);
+        } finally {
+            single.close();
+        }
+
+        assertThat(executed).hasValue(children.size());
+    }
+
+    @Test
+    void executesSameThreadTasksInCallingThread()
+    {
+        var thread = new AtomicReference<Thread>();
+
+        service.invokeAll(List.of(
+            task(SAME_THREAD, () -> thread.set(Thread.currentThread()))));
+
+        assertThat(thread).hasValue(Thread.currentThread());
+    }
+
+    @Test
+    void failsWhenConcurrentTaskFails()
+    {
+        var failure = new IllegalStateException("failed");
+
+        assertThatThrownBy(() -> service.invokeAll(List.of(
+            task(CONCURRENT, () -> {
+                throw failure;
+            }))))
+            .isInstanceOf(IllegalStateException.class)
+            .hasMessage("test task failed")
+            .hasRootCause(failure);
+    }
+
+    private static TestTask task(ExecutionMode mode, Body body)
+    {
+        var task = mock(TestTask.class);
+        var lock = mock(ResourceLock.class);
+
+        try {
+            doReturn(lock).when(lock).acquire();
+        } catch (InterruptedException ex) {
+            throw new IllegalStateException(ex);
+        }
+
+        doReturn(mode).when(task).getExecutionMode();
+        doReturn(lock).when(task).getResourceLock();
+        doAnswer(invocation -> {
+            body.execute();
+
+            return null;
+        }).when(task).execute();
+
+        return task;
+    }
+
+    @FunctionalInterface
+    private interface Body {
+        void execute() throws Exception;
+    }
+}
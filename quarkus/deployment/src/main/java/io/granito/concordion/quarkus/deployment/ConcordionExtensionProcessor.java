@@ -16,12 +16,19 @@
 
 package io.granito.concordion.quarkus.deployment;
 
+import java.util.LinkedHashSet;
+
 import io.granito.concordion.quarkus.ConcordionFixture;
 import io.quarkus.arc.deployment.AutoAddScopeBuildItem;
 import io.quarkus.arc.deployment.UnremovableBeanBuildItem;
+import io.quarkus.arc.deployment.ValidationPhaseBuildItem.ValidationErrorBuildItem;
 import io.quarkus.arc.processor.BuiltinScope;
+import io.quarkus.deployment.annotations.BuildProducer;
 import io.quarkus.deployment.annotations.BuildStep;
+import io.quarkus.deployment.builditem.CombinedIndexBuildItem;
 import io.quarkus.deployment.builditem.FeatureBuildItem;
+import org.jboss.jandex.AnnotationTarget;
+import org.jboss.jandex.ClassInfo;
 import org.jboss.jandex.DotName;
 
 /**
@@ -64,4 +71,38 @@ UnremovableBeanBuildItem unremovableBean()
         return UnremovableBeanBuildItem
             .targetWithAnnotation(FIXTURE_ANNOTATION);
     }
+
+    /**
+     * Validates the specifications of all classes annotated with
+     * {@link ConcordionFixture @ConcordionFixture} (including their
+     * subclasses), so that references to fixture methods that do not
+     * exist fail the build at augmentation time rather than the
+     * specification at runtime.
+     */
+    @BuildStep
+    void validateSpecifications(CombinedIndexBuildItem combinedIndex,
+        BuildProducer<ValidationErrorBuildItem> errors)
+    {
+        var index = combinedIndex.getIndex();
+        var validator = new SpecificationValidator(index,
+            Thread.currentThread().getContextClassLoader());
+        var fixtures = new LinkedHashSet<ClassInfo>();
+
+        for (var annotation: index.getAnnotations(FIXTURE_ANNOTATION)) {
+            if (annotation.target().kind() != AnnotationTarget.Kind.CLASS)
+                continue;
+
+            var clazz = annotation.target().asClass();
+
+            fixtures.add(clazz);
+            fixtures.addAll(index.getAllKnownSubclasses(clazz.name()));
+        }
+
+        fixtures.stream()
+            .filter(validator::isFixture)
+            .flatMap(fixture -> validator.validate(fixture).stream())
+            .map(problem -> new ValidationErrorBuildItem(
+                new IllegalStateException(problem)))
+            .forEach(errors::produce);
+    }
 }
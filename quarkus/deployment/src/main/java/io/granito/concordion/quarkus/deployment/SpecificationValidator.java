@@ -0,0 +1,275 @@
+/*
+ * Copyright 2025 Alexei Yashkov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.granito.concordion.quarkus.deployment;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.jboss.jandex.ClassInfo;
+import org.jboss.jandex.DotName;
+import org.jboss.jandex.IndexView;
+import org.jboss.jandex.MethodInfo;
+
+/**
+ * A build-time validator for Concordion specifications. It locates the
+ * specification of a fixture class the same way as
+ * {@link org.concordion.internal.ClassNameBasedSpecificationLocator}
+ * does, extracts the method calls from the Concordion commands that
+ * evaluate expressions and checks that the fixture class (or one of its
+ * supertypes) declares methods with such names. The values of the other
+ * commands, such as example names, are not expressions and are ignored.
+ */
+public class SpecificationValidator {
+    private static final String NAMESPACE =
+        "http://www.concordion.org/2007/concordion";
+
+    private static final String FIXTURE_PATTERN = ".*(Fixture|Test)$";
+
+    private static final String[] TYPES = { "html", "md" };
+
+    private static final Pattern PREFIX = Pattern.compile(
+        "xmlns:([\\w.-]+)\\s*=\\s*[\"']" + Pattern.quote(NAMESPACE) +
+            "[\"']");
+
+    private static final Pattern MARKDOWN_COMMAND = Pattern.compile(
+        "]\\(-\\s+(?:\"([^\"]*)\"|'([^']*)')\\)");
+
+    private static final Pattern MARKDOWN_HEADING = Pattern.compile(
+        "[ \\t]{0,3}#");
+
+    private static final Pattern MARKDOWN_NAMED_COMMAND = Pattern.compile(
+        "c:([\\w-]+)=(.*?)(?=\\s+c:[\\w-]+=|$)");
+
+    private static final Set<String> EXPRESSION_COMMANDS = Set.of(
+        "assertequals", "assertfalse", "asserttrue", "echo", "execute",
+        "run", "set", "verifyrows");
+
+    private static final Pattern LITERAL = Pattern.compile(
+        "'[^']*'|\"[^\"]*\"");
+
+    private static final Pattern METHOD_CALL = Pattern.compile(
+        "(?<![\\w$])(?<![.#@]\\s{0,16})(?<!\\bnew\\s{1,16})" +
+            "([A-Za-z_$][\\w$]*)\\s*\\(");
+
+    private static final DotName OBJECT = DotName.createSimple(Object.class);
+
+    private final IndexView index;
+
+    private final ClassLoader classLoader;
+
+    /**
+     * Creates a new {@link SpecificationValidator}.
+     *
+     * @param index the index to look up fixture classes in
+     * @param classLoader the class loader to load specifications from
+     */
+    public SpecificationValidator(IndexView index, ClassLoader classLoader)
+    {
+        this.index = index;
+        this.classLoader = classLoader;
+    }
+
+    /**
+     * Checks if the given class should be validated, i.e. it is a
+     * concrete class which name matches the fixture naming convention.
+     *
+     * @param fixture the class to check
+     * @return {@code true} if the class is a fixture candidate,
+     * {@code false} otherwise
+     */
+    public boolean isFixture(ClassInfo fixture)
+    {
+        return !Modifier.isAbstract(fixture.flags()) &&
+            !fixture.isInterface() &&
+            fixture.name().toString().matches(FIXTURE_PATTERN);
+    }
+
+    /**
+     * Validates the specification of the given fixture class.
+     *
+     * @param fixture the fixture class
+     * @return the list of problems found, empty if the specification
+     * is valid
+     */
+    public List<String> validate(ClassInfo fixture)
+    {
+        var name = fixture.name().toString();
+        var path = name.replace('.', '/').replaceAll("(Fixture|Test)$", "");
+
+        for (var type: TYPES) {
+            var spec = read(path + "." + type);
+
+            if (spec != null)
+                return validate(fixture, "/" + path + "." + type,
+                    "md".equals(type) ? markdownCalls(spec) :
+                        htmlCalls(spec));
+        }
+
+        return List.of("no specification found for [" + name +
+            "] fixture");
+    }
+
+    private List<String> validate(ClassInfo fixture, String spec,
+        Set<String> calls)
+    {
+        var methods = methodNames(fixture);
+
+        if (methods == null)
+            return List.of();
+
+        var problems = new ArrayList<String>();
+
+        for (var call: calls)
+            if (!methods.contains(call))
+                problems.add("method '" + call + "' referenced in " +
+                    spec + " is not found in [" + fixture.name() +
+                    "] fixture");
+
+        return problems;
+    }
+
+    private Set<String> htmlCalls(String spec)
+    {
+        var calls = new TreeSet<String>();
+        var prefixes = PREFIX.matcher(spec);
+
+        while (prefixes.find()) {
+            var commands = Pattern
+                .compile("\\s" + Pattern.quote(prefixes.group(1)) +
+                    ":([\\w-]+)\\s*=\\s*(?:\"([^\"]*)\"|'([^']*)')")
+                .matcher(spec);
+
+            while (commands.find())
+                if (isExpression(commands.group(1)))
+                    addCalls(calls, commands.group(2) != null ?
+                        commands.group(2) : commands.group(3));
+        }
+
+        return calls;
+    }
+
+    private Set<String> markdownCalls(String spec)
+    {
+        var calls = new TreeSet<String>();
+        var commands = MARKDOWN_COMMAND.matcher(spec);
+
+        while (commands.find()) {
+            if (isHeading(spec, commands.start()))
+                continue;
+
+            var value = value(commands).trim();
+
+            if (!value.startsWith("c:")) {
+                addCalls(calls, value);
+                continue;
+            }
+
+            var named = MARKDOWN_NAMED_COMMAND.matcher(value);
+
+            while (named.find())
+                if (isExpression(named.group(1)))
+                    addCalls(calls, named.group(2));
+        }
+
+        return calls;
+    }
+
+    private boolean isHeading(String spec, int position)
+    {
+        var line = spec.lastIndexOf('\n', position) + 1;
+
+        return MARKDOWN_HEADING.matcher(spec)
+            .region(line, position)
+            .lookingAt();
+    }
+
+    private boolean isExpression(String command)
+    {
+        return EXPRESSION_COMMANDS.contains(command.replace("-", "")
+            .toLowerCase(Locale.ROOT));
+    }
+
+    private String value(Matcher matcher)
+    {
+        return matcher.group(1) != null ? matcher.group(1) :
+            matcher.group(2);
+    }
+
+    private void addCalls(Set<String> calls, String expression)
+    {
+        var matcher = METHOD_CALL.matcher(LITERAL.matcher(expression
+            .replace("&quot;", "\"")
+            .replace("&apos;", "'")).replaceAll("''"));
+
+        while (matcher.find())
+            calls.add(matcher.group(1));
+    }
+
+    private Set<String> methodNames(ClassInfo fixture)
+    {
+        var names = new HashSet<String>();
+
+        for (Method method: Object.class.getMethods())
+            names.add(method.getName());
+
+        return collectMethodNames(fixture, names) ? names : null;
+    }
+
+    private boolean collectMethodNames(ClassInfo clazz, Set<String> names)
+    {
+        for (MethodInfo method: clazz.methods())
+            names.add(method.name());
+
+        var supertypes = new ArrayList<DotName>(clazz.interfaceNames());
+
+        if (clazz.superName() != null)
+            supertypes.add(clazz.superName());
+
+        for (var supertype: supertypes) {
+            if (OBJECT.equals(supertype))
+                continue;
+
+            var info = index.getClassByName(supertype);
+
+            if (info == null || !collectMethodNames(info, names))
+                return false;
+        }
+
+        return true;
+    }
+
+    private String read(String path)
+    {
+        try (var in = classLoader.getResourceAsStream(path)) {
+            return in == null ? null :
+                new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+}
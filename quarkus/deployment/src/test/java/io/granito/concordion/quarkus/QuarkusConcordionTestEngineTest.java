@@ -25,6 +25,7 @@
 import spec.quarkus.DemoFixture;
 import spec.quarkus.PartialMatchesFixture;
 import spec.quarkus.SpikeFixture;
+import spec.resources.ResourceFixture;
 
 class QuarkusConcordionTestEngineTest {
     private final EngineTestKit.Builder engine = EngineTestKit
@@ -95,4 +96,14 @@ void runsConcordionSpecs()
             .testEvents()
             .assertStatistics(stats -> stats.started(3).succeeded(3));
     }
+
+    @Test
+    void injectsConfigurationProvidedByTestResources()
+    {
+        engine
+            .selectors(DiscoverySelectors.selectClass(ResourceFixture.class))
+            .execute()
+            .testEvents()
+            .assertStatistics(stats -> stats.started(1).succeeded(1));
+    }
 }
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2025 Alexei Yashkov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.granito.concordion.quarkus.deployment;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.jboss.jandex.ClassInfo;
+import org.jboss.jandex.DotName;
+import org.jboss.jandex.Index;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import spec.quarkus.DemoFixture;
+import spec.quarkus.PartialMatchesFixture;
+import spec.quarkus.SpikeFixture;
+import spec.validation.BaseFixture;
+import spec.validation.BrokenFixture;
+import spec.validation.ExamplesFixture;
+import spec.validation.MarkdownFixture;
+import spec.validation.MissingFixture;
+import spec.validation.OgnlFixture;
+
+class SpecificationValidatorTest {
+    private Index index;
+
+    private SpecificationValidator validator;
+
+    @BeforeEach
+    void setUp() throws Exception
+    {
+        index = Index.of(DemoFixture.class, PartialMatchesFixture.class,
+            SpikeFixture.class, BaseFixture.class, BrokenFixture.class,
+            ExamplesFixture.class, MarkdownFixture.class,
+            MissingFixture.class, OgnlFixture.class);
+        validator = new SpecificationValidator(index,
+            getClass().getClassLoader());
+    }
+
+    @Test
+    void recognizesConcreteFixtures()
+    {
+        assertThat(validator.isFixture(info(DemoFixture.class))).isTrue();
+        assertThat(validator.isFixture(info(BaseFixture.class))).isFalse();
+    }
+
+    @Test
+    void reportsNoProblemsWhenHtmlSpecificationIsValid()
+    {
+        assertThat(validator.validate(info(DemoFixture.class))).isEmpty();
+        assertThat(validator.validate(info(PartialMatchesFixture.class)))
+            .isEmpty();
+        assertThat(validator.validate(info(SpikeFixture.class))).isEmpty();
+    }
+
+    @Test
+    void reportsNoProblemsWhenMarkdownSpecificationIsValid()
+    {
+        assertThat(validator.validate(info(MarkdownFixture.class)))
+            .isEmpty();
+    }
+
+    @Test
+    void ignoresValuesOfCommandsThatAreNotExpressions()
+    {
+        assertThat(validator.validate(info(ExamplesFixture.class)))
+            .isEmpty();
+    }
+
+    @Test
+    void ignoresCallsOnOtherReceivers()
+    {
+        assertThat(validator.validate(info(OgnlFixture.class))).isEmpty();
+    }
+
+    @Test
+    void reportsMissingMethods()
+    {
+        assertThat(validator.validate(info(BrokenFixture.class)))
+            .containsExactly("method 'farewellFor' referenced in " +
+                "/spec/validation/Broken.html is not found in " +
+                "[spec.validation.BrokenFixture] fixture");
+    }
+
+    @Test
+    void reportsMissingSpecification()
+    {
+        assertThat(validator.validate(info(MissingFixture.class)))
+            .containsExactly("no specification found for " +
+                "[spec.validation.MissingFixture] fixture");
+    }
+
+    private ClassInfo info(Class<?> clazz)
+    {
+        return index.getClassByName(DotName.createSimple(clazz));
+    }
+}
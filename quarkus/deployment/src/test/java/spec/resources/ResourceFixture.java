@@ -0,0 +1,34 @@
+package spec.resources;
+
+import java.util.Map;
+
+import io.granito.concordion.quarkus.ConcordionFixture;
+import io.quarkus.test.common.QuarkusTestResource;
+import io.quarkus.test.common.QuarkusTestResourceLifecycleManager;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+@ConcordionFixture
+@QuarkusTestResource(ResourceFixture.GreetingResource.class)
+public class ResourceFixture {
+    @ConfigProperty(name = "greeting.text")
+    String greeting;
+
+    public String greetingFor(String name)
+    {
+        return greeting + " " + name + "!";
+    }
+
+    public static class GreetingResource
+        implements QuarkusTestResourceLifecycleManager {
+        @Override
+        public Map<String, String> start()
+        {
+            return Map.of("greeting.text", "Hola");
+        }
+
+        @Override
+        public void stop()
+        {
+        }
+    }
+}
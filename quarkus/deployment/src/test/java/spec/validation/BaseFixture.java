@@ -0,0 +1,7 @@
+package spec.validation;
+
+public abstract class BaseFixture {
+    public void doSomething()
+    {
+    }
+}
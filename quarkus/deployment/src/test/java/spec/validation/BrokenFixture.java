@@ -0,0 +1,8 @@
+package spec.validation;
+
+public class BrokenFixture {
+    public String greetingFor(String firstName)
+    {
+        return String.format("Hello %s!", firstName);
+    }
+}
@@ -0,0 +1,8 @@
+package spec.validation;
+
+public class ExamplesFixture extends BaseFixture {
+    public String greetingFor(String firstName)
+    {
+        return String.format("Hello %s!", firstName);
+    }
+}
@@ -0,0 +1,4 @@
+package spec.validation;
+
+public class MissingFixture {
+}
@@ -0,0 +1,10 @@
+package spec.validation;
+
+import java.util.List;
+
+public class OgnlFixture {
+    public List<String> names(List<String> names, int count)
+    {
+        return names;
+    }
+}
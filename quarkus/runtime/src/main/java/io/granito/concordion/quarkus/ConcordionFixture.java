@@ -35,4 +35,16 @@
 @Documented
 @Testable
 public @interface ConcordionFixture {
+    /**
+     * Whether the examples of the specification are independent of each
+     * other and can be executed concurrently, when parallel execution
+     * is enabled. Each example gets the fixture object from CDI, so a
+     * fixture with a normal scope, such as {@code @ApplicationScoped},
+     * is shared by the examples running at once. The fixture must not
+     * share mutable state between the examples then.
+     *
+     * @return {@code true} if the examples can be executed concurrently,
+     * {@code false} otherwise
+     */
+    boolean independentExamples() default false;
 }
@@ -16,8 +16,15 @@
 
 package io.granito.concordion.quarkus;
 
+import static org.junit.platform.commons.support.AnnotationSupport.findAnnotation;
+import static org.junit.platform.commons.support.ReflectionSupport.streamAllClassesInClasspathRoot;
+
 import java.nio.file.Paths;
+import java.util.List;
+import java.util.Map;
 import java.util.ServiceLoader;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 import io.quarkus.bootstrap.BootstrapException;
 import io.quarkus.bootstrap.app.QuarkusBootstrap;
@@ -43,6 +50,8 @@ public class QuarkusConcordionTestEngine implements TestEngine {
 
     private static StartupAction startupAction;
 
+    private static Map<String, String> testResourceConfig = Map.of();
+
     private static TestEngine testEngine;
 
     /**
@@ -110,11 +119,13 @@ protected <T> ServiceLoader<T> serviceLoaderLoad(Class<T> service,
      * facilitate unit testing.
      *
      * @param startupAction the Quarkus startup action
+     * @param config the configuration provided by the test resources
      * @return a new instance of {@code QuarkusTestEngine}
      */
-    protected TestEngine newQuarkusTestEngine(StartupAction startupAction)
+    protected TestEngine newQuarkusTestEngine(StartupAction startupAction,
+        Map<String, String> config)
     {
-        return new QuarkusTestEngine(startupAction);
+        return new QuarkusTestEngine(startupAction, config);
     }
 
     private TestEngine reloadTestEngine()
@@ -129,13 +140,9 @@ private TestEngine reloadTestEngine()
                 var engine = (TestEngine)provider;
 
                 if (ENGINE_ID.equals(engine.getId())) {
-                    var field = engine
-                        .getClass()
-                        .getDeclaredField("startupAction");
-
-                    field.setAccessible(true);
-                    field.set(null, startupAction);
-                    field.setAccessible(false);
+                    setStaticField(engine, "startupAction", startupAction);
+                    setStaticField(engine, "testResourceConfig",
+                        testResourceConfig);
 
                     return engine;
                 }
@@ -149,6 +156,16 @@ private TestEngine reloadTestEngine()
             ENGINE_ID);
     }
 
+    private void setStaticField(TestEngine engine, String name,
+        Object value) throws ReflectiveOperationException
+    {
+        var field = engine.getClass().getDeclaredField(name);
+
+        field.setAccessible(true);
+        field.set(null, value);
+        field.setAccessible(false);
+    }
+
     private void ensureTestEngine(EngineDiscoveryRequest request)
     {
         synchronized (QuarkusConcordionTestEngine.class) {
@@ -162,18 +179,53 @@ private void ensureTestEngine(EngineDiscoveryRequest request)
                 .contains("Quarkus");
 
             if (runningUnderQuarkus) {
-                testEngine = newQuarkusTestEngine(startupAction);
+                testEngine = newQuarkusTestEngine(startupAction,
+                    testResourceConfig);
 
                 return;
             }
 
-            QuarkusTestEngine.fixtureStream(request)
-                .findAny()
-                .map(this::bootstrap)
-                .ifPresent(action -> {
-                    startupAction = action;
-                    testEngine = reloadTestEngine();
-                });
+            var fixtures = QuarkusTestEngine.fixtureStream(request).toList();
+
+            if (fixtures.isEmpty())
+                return;
+
+            startupAction = bootstrapWithTestResources(fixtures);
+            testEngine = reloadTestEngine();
+        }
+    }
+
+    private StartupAction bootstrapWithTestResources(List<Class<?>> fixtures)
+    {
+        var testLocation = PathTestHelper
+            .getTestClassesLocation(fixtures.get(0));
+        var resources = QuarkusTestResources.of(
+            fixtures.stream().filter(fixture -> findAnnotation(fixture,
+                ConcordionFixture.class).isPresent()),
+            streamAllClassesInClasspathRoot(testLocation.toUri(),
+                clazz -> true, className -> true));
+
+        if (resources.isEmpty())
+            return bootstrap(fixtures.get(0));
+
+        var config = CompletableFuture.supplyAsync(resources::start);
+        var shutdownHook = new Thread(resources::close);
+
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
+
+        try {
+            var action = bootstrap(fixtures.get(0));
+
+            testResourceConfig = config.join();
+
+            return action;
+        } catch (RuntimeException ex) {
+            config.exceptionally(t -> null).join();
+            resources.close();
+            Runtime.getRuntime().removeShutdownHook(shutdownHook);
+
+            throw ex instanceof CompletionException &&
+                ex.getCause() instanceof RuntimeException cause ? cause : ex;
         }
     }
 
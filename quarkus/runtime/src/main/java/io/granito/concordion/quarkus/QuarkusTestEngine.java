@@ -18,6 +18,7 @@
 
 import static org.junit.platform.commons.support.AnnotationSupport.findAnnotation;
 
+import java.util.HashMap;
 import java.util.Map;
 import java.util.Random;
 
@@ -44,6 +45,8 @@ public class QuarkusTestEngine extends BaseConcordionTestEngine {
 
     private final StartupAction startupAction;
 
+    private final Map<String, String> config;
+
     private RunningQuarkusApplication runningApplication;
 
     /**
@@ -52,8 +55,23 @@ public class QuarkusTestEngine extends BaseConcordionTestEngine {
      * @param startupAction the action to start the Quarkus application
      */
     public QuarkusTestEngine(StartupAction startupAction)
+    {
+        this(startupAction, Map.of());
+    }
+
+    /**
+     * Creates a new instance of {@link QuarkusTestEngine} with additional
+     * configuration, normally provided by the test resources.
+     *
+     * @param startupAction the action to start the Quarkus application
+     * @param config the configuration to override when starting
+     * the Quarkus application
+     */
+    public QuarkusTestEngine(StartupAction startupAction,
+        Map<String, String> config)
     {
         this.startupAction = startupAction;
+        this.config = Map.copyOf(config);
         System.setProperty("concordion.runner.concordion",
             QuarkusConcordionRunner.class.getName());
     }
@@ -130,6 +148,22 @@ protected Object createFixtureObject(Class<?> clazz)
         return CDI.current().select(clazz).get();
     }
 
+    /**
+     * Checks if the examples of the given fixture class are declared
+     * {@linkplain ConcordionFixture#independentExamples() independent}.
+     *
+     * @param clazz the fixture class
+     * @return {@code true} if the examples can be executed concurrently,
+     * {@code false} otherwise
+     */
+    @Override
+    protected boolean examplesIndependent(Class<?> clazz)
+    {
+        return findAnnotation(clazz, ConcordionFixture.class)
+            .map(ConcordionFixture::independentExamples)
+            .orElse(false);
+    }
+
     private synchronized void ensureRunning()
     {
         if (runningApplication == null) {
@@ -148,9 +182,10 @@ private RunningQuarkusApplication runApplication(StartupAction action)
         throws Exception
     {
         var port = new Random().nextInt(MAX_PORT - MIN_PORT) + MIN_PORT;
+        var override = new HashMap<>(config);
 
-        action.overrideConfig(
-            Map.of("quarkus.http.test-port", String.valueOf(port)));
+        override.put("quarkus.http.test-port", String.valueOf(port));
+        action.overrideConfig(override);
         configureRestAssured(action.getClassLoader(), port);
 
         return action.run();
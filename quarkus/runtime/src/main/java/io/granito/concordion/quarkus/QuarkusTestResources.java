@@ -0,0 +1,201 @@
+/*
+ * Copyright 2025 Alexei Yashkov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.granito.concordion.quarkus;
+
+import static org.junit.platform.commons.support.AnnotationSupport.findRepeatableAnnotations;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.stream.Stream;
+
+import io.quarkus.test.common.QuarkusTestResource;
+import io.quarkus.test.common.QuarkusTestResourceLifecycleManager;
+import io.quarkus.test.common.ResourceArg;
+import org.junit.platform.commons.support.ReflectionSupport;
+
+/**
+ * A set of {@link QuarkusTestResourceLifecycleManager} instances
+ * declared with {@link QuarkusTestResource @QuarkusTestResource}
+ * annotations on Concordion fixture classes. Each distinct combination
+ * of the manager class and its initialization arguments is started
+ * only once, regardless of the number of fixtures declaring it.
+ */
+public class QuarkusTestResources implements AutoCloseable {
+    private final List<Entry> entries;
+
+    private final List<QuarkusTestResourceLifecycleManager> started =
+        Collections.synchronizedList(new ArrayList<>());
+
+    private QuarkusTestResources(List<Entry> entries)
+    {
+        this.entries = entries;
+    }
+
+    /**
+     * Collects the test resources declared on the given fixture classes.
+     *
+     * @param fixtures the fixture classes
+     * @return the test resources, possibly empty
+     */
+    public static QuarkusTestResources of(Stream<Class<?>> fixtures)
+    {
+        return of(fixtures, Stream.empty());
+    }
+
+    /**
+     * Collects the test resources declared on the given fixture classes
+     * and the resources declared on any other test classes that are not
+     * {@linkplain QuarkusTestResource#restrictToAnnotatedClass()
+     * restricted} to the annotated class. This matches the way Quarkus
+     * applies test resources to all tests, and makes the started
+     * resources independent of the fixtures that happen to trigger the
+     * application startup.
+     *
+     * @param fixtures the fixture classes
+     * @param classes the other test classes
+     * @return the test resources, possibly empty
+     */
+    public static QuarkusTestResources of(Stream<Class<?>> fixtures,
+        Stream<Class<?>> classes)
+    {
+        var entries = new LinkedHashMap<String, Entry>();
+        var global = classes
+            .flatMap(clazz -> findRepeatableAnnotations(clazz,
+                QuarkusTestResource.class).stream())
+            .filter(resource -> !resource.restrictToAnnotatedClass());
+
+        Stream.concat(fixtures
+            .flatMap(fixture -> findRepeatableAnnotations(fixture,
+                QuarkusTestResource.class).stream()), global)
+            .forEach(resource -> {
+                var args = new LinkedHashMap<String, String>();
+
+                for (ResourceArg arg: resource.initArgs())
+                    args.put(arg.name(), arg.value());
+
+                entries.putIfAbsent(resource.value().getName() + args,
+                    new Entry(resource.value(), args, resource.parallel()));
+            });
+
+        return new QuarkusTestResources(new ArrayList<>(entries.values()));
+    }
+
+    /**
+     * Indicates whether there are any test resources to start.
+     *
+     * @return {@code true} if no test resources are declared,
+     * {@code false} otherwise
+     */
+    public boolean isEmpty()
+    {
+        return entries.isEmpty();
+    }
+
+    /**
+     * Starts all test resources. The resources that are not marked as
+     * {@linkplain QuarkusTestResource#parallel() parallel} are started
+     * sequentially according to their
+     * {@linkplain QuarkusTestResourceLifecycleManager#order() order},
+     * the rest are started concurrently.
+     *
+     * @return the combined configuration properties returned by the
+     * started resources
+     */
+    public Map<String, String> start()
+    {
+        var managers = new ArrayList<Map.Entry<Entry,
+            QuarkusTestResourceLifecycleManager>>();
+
+        for (var entry: entries) {
+            var manager = ReflectionSupport.newInstance(entry.type());
+
+            manager.init(entry.args());
+            managers.add(Map.entry(entry, manager));
+        }
+
+        managers.sort(Comparator.comparingInt(e -> e.getValue().order()));
+
+        var config = new HashMap<String, String>();
+        var parallel = new ArrayList<CompletableFuture<Map<String,
+            String>>>();
+
+        try {
+            for (var entry: managers) {
+                var manager = entry.getValue();
+
+                if (entry.getKey().parallel())
+                    parallel.add(CompletableFuture
+                        .supplyAsync(() -> start(manager)));
+                else
+                    config.putAll(start(manager));
+            }
+
+            for (var future: parallel)
+                config.putAll(future.join());
+        } catch (RuntimeException ex) {
+            CompletableFuture.allOf(parallel.toArray(CompletableFuture[]::new))
+                .exceptionally(t -> null)
+                .join();
+            close();
+
+            throw ex instanceof CompletionException &&
+                ex.getCause() instanceof RuntimeException cause ? cause : ex;
+        }
+
+        return config;
+    }
+
+    /**
+     * Stops all started test resources in the reverse order.
+     */
+    @Override
+    public void close()
+    {
+        synchronized (started) {
+            for (var i = started.size() - 1; i >= 0; i--)
+                try {
+                    started.get(i).stop();
+                } catch (RuntimeException ex) {
+                    // keep stopping the remaining resources
+                }
+
+            started.clear();
+        }
+    }
+
+    private Map<String, String> start(
+        QuarkusTestResourceLifecycleManager manager)
+    {
+        var config = manager.start();
+
+        started.add(manager);
+
+        return config == null ? Map.of() : config;
+    }
+
+    private record Entry(
+        Class<? extends QuarkusTestResourceLifecycleManager> type,
+        Map<String, String> args, boolean parallel) {
+    }
+}
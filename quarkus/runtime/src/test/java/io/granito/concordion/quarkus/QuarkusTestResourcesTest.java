@@ -0,0 +1,210 @@
+/*
+ * Copyright 2025 Alexei Yashkov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.granito.concordion.quarkus;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Stream;
+
+import io.quarkus.test.common.QuarkusTestResource;
+import io.quarkus.test.common.QuarkusTestResourceLifecycleManager;
+import io.quarkus.test.common.ResourceArg;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class QuarkusTestResourcesTest {
+    private static final List<String> events = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    void setUp()
+    {
+        events.clear();
+    }
+
+    @Test
+    void isEmptyWhenNoResourcesDeclared()
+    {
+        var resources = QuarkusTestResources.of(
+            Stream.of(PlainFixture.class));
+
+        assertThat(resources.isEmpty()).isTrue();
+        assertThat(resources.start()).isEmpty();
+    }
+
+    @Test
+    void startsEachDistinctResourceOnce()
+    {
+        var resources = QuarkusTestResources.of(Stream.of(
+            DatabaseFixture.class, SharedDatabaseFixture.class,
+            BrokerFixture.class));
+
+        var config = resources.start();
+
+        assertThat(config).containsExactlyInAnyOrderEntriesOf(Map.of(
+            "db.url", "jdbc:test:orders",
+            "broker.url", "amqp://localhost"));
+        assertThat(events).containsExactly(
+            "init database {name=orders}",
+            "init broker {}",
+            "start database",
+            "start broker");
+    }
+
+    @Test
+    void startsUnrestrictedResourcesOfOtherClasses()
+    {
+        var resources = QuarkusTestResources.of(
+            Stream.of(PlainFixture.class),
+            Stream.of(BrokerFixture.class, RestrictedFixture.class));
+
+        assertThat(resources.start())
+            .containsExactlyEntriesOf(Map.of("broker.url", "amqp://localhost"));
+        assertThat(events).containsExactly("init broker {}", "start broker");
+    }
+
+    @Test
+    void stopsStartedResourcesInReverseOrder()
+    {
+        var resources = QuarkusTestResources.of(Stream.of(
+            DatabaseFixture.class, BrokerFixture.class));
+
+        resources.start();
+        events.clear();
+        resources.close();
+
+        assertThat(events).containsExactly("stop broker", "stop database");
+    }
+
+    @Test
+    void stopsStartedResourcesWhenStartFails()
+    {
+        var resources = QuarkusTestResources.of(Stream.of(
+            DatabaseFixture.class, FailingFixture.class));
+
+        assertThatThrownBy(resources::start)
+            .isInstanceOf(IllegalStateException.class)
+            .hasMessage("failing");
+
+        assertThat(events).endsWith("stop database");
+    }
+
+    private static class PlainFixture {
+    }
+
+    @QuarkusTestResource(value = DatabaseResource.class,
+        initArgs = @ResourceArg(name = "name", value = "orders"))
+    private static class DatabaseFixture {
+    }
+
+    @QuarkusTestResource(value = DatabaseResource.class,
+        initArgs = @ResourceArg(name = "name", value = "orders"))
+    private static class SharedDatabaseFixture {
+    }
+
+    @QuarkusTestResource(BrokerResource.class)
+    private static class BrokerFixture {
+    }
+
+    @QuarkusTestResource(FailingResource.class)
+    private static class FailingFixture {
+    }
+
+    @QuarkusTestResource(value = DatabaseResource.class,
+        restrictToAnnotatedClass = true)
+    private static class RestrictedFixture {
+    }
+
+    public static class DatabaseResource
+        implements QuarkusTestResourceLifecycleManager {
+        private String name;
+
+        @Override
+        public void init(Map<String, String> initArgs)
+        {
+            name = initArgs.get("name");
+            events.add("init database " + initArgs);
+        }
+
+        @Override
+        public Map<String, String> start()
+        {
+            events.add("start database");
+
+            return Map.of("db.url", "jdbc:test:" + name);
+        }
+
+        @Override
+        public void stop()
+        {
+            events.add("stop database");
+        }
+    }
+
+    public static class BrokerResource
+        implements QuarkusTestResourceLifecycleManager {
+        @Override
+        public void init(Map<String, String> initArgs)
+        {
+            events.add("init broker " + initArgs);
+        }
+
+        @Override
+        public Map<String, String> start()
+        {
+            events.add("start broker");
+
+            return Map.of("broker.url", "amqp://localhost");
+        }
+
+        @Override
+        public void stop()
+        {
+            events.add("stop broker");
+        }
+
+        @Override
+        public int order()
+        {
+            return 1;
+        }
+    }
+
+    public static class FailingResource
+        implements QuarkusTestResourceLifecycleManager {
+        @Override
+        public Map<String, String> start()
+        {
+            throw new IllegalStateException("failing");
+        }
+
+        @Override
+        public void stop()
+        {
+            events.add("stop failing");
+        }
+
+        @Override
+        public int order()
+        {
+            return 1;
+        }
+    }
+}
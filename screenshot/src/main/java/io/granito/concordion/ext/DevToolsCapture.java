@@ -0,0 +1,133 @@
+/*
+ * Copyright 2025 Alexei Yashkov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.granito.concordion.ext;
+
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+
+import io.granito.concordion.ext.SeleniumScreenshotExtension.Screenshot;
+import org.openqa.selenium.Rectangle;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.chromium.HasCdp;
+
+/**
+ * Captures screenshots with the Chrome DevTools Protocol. The class
+ * refers to the optional Chromium driver and must only be used when it
+ * is present on the class path.
+ */
+final class DevToolsCapture {
+    private static final String CAPTURE_SCREENSHOT = "Page.captureScreenshot";
+
+    private static final String GET_LAYOUT_METRICS = "Page.getLayoutMetrics";
+
+    private DevToolsCapture()
+    {
+    }
+
+    /**
+     * Captures the screenshot of the visual viewport with
+     * {@code Page.captureScreenshot} command.
+     *
+     * @param webDriver the {@code WebDriver}
+     * @param clip the region to capture in image pixels, or {@code null}
+     * to capture the whole viewport
+     * @return the screenshot, or {@code null} if the {@code WebDriver}
+     * does not support the DevTools Protocol or the command fails
+     */
+    static Screenshot capture(WebDriver webDriver, Rectangle clip)
+    {
+        if (!(webDriver instanceof HasCdp cdp))
+            return null;
+
+        try {
+            var params = new HashMap<String, Object>();
+            var viewport = clip == null ? null : viewport(cdp, clip);
+
+            params.put("format", ScreenshotProcessor.PNG);
+
+            if (viewport != null)
+                params.put("clip", viewport);
+
+            var result = cdp.executeCdpCommand(CAPTURE_SCREENSHOT, params);
+
+            if (result != null && result.get("data") instanceof String data)
+                return new Screenshot(Base64.getDecoder().decode(data),
+                    null);
+        } catch (WebDriverException | IllegalArgumentException ex) {
+            // fall back to WebDriver screenshot endpoint
+        }
+
+        return null;
+    }
+
+    /**
+     * Converts the clip, given in image pixels relative to the visual
+     * viewport, to the {@code clip} parameter of
+     * {@code Page.captureScreenshot}, given in CSS pixels relative to
+     * the page.
+     *
+     * @param cdp the DevTools Protocol capable {@code WebDriver}
+     * @param clip the clip in image pixels
+     * @return the {@code clip} parameter, or {@code null} if the clip
+     * lies outside of the viewport
+     * @throws IllegalArgumentException when the layout metrics are not
+     * available
+     */
+    private static Map<String, Object> viewport(HasCdp cdp, Rectangle clip)
+    {
+        var metrics = cdp.executeCdpCommand(GET_LAYOUT_METRICS, Map.of());
+
+        if (metrics == null ||
+            !(metrics.get("cssVisualViewport") instanceof Map<?, ?> css))
+            throw new IllegalArgumentException(
+                "layout metrics are not available");
+
+        var width = number(css, "clientWidth");
+        var height = number(css, "clientHeight");
+
+        if (width <= 0 || height <= 0)
+            throw new IllegalArgumentException("viewport is empty");
+
+        var ratio = metrics.get("visualViewport") instanceof Map<?, ?> device ?
+            number(device, "clientWidth") / width : 1;
+        var x0 = Math.max(clip.getX(), 0);
+        var y0 = Math.max(clip.getY(), 0);
+        var x1 = Math.min(clip.getX() + clip.getWidth(), width * ratio);
+        var y1 = Math.min(clip.getY() + clip.getHeight(), height * ratio);
+
+        if (x1 <= x0 || y1 <= y0)
+            return null;
+
+        return Map.of(
+            "x", number(css, "pageX") + x0 / ratio,
+            "y", number(css, "pageY") + y0 / ratio,
+            "width", (x1 - x0) / ratio,
+            "height", (y1 - y0) / ratio,
+            "scale", 1);
+    }
+
+    private static double number(Map<?, ?> map, String key)
+    {
+        if (map.get(key) instanceof Number number)
+            return number.doubleValue();
+
+        throw new IllegalArgumentException("'" + key +
+            "' must be a number, was: " + map.get(key));
+    }
+}
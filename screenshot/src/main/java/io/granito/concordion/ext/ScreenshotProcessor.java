@@ -0,0 +1,194 @@
+/*
+ * Copyright 2025 Alexei Yashkov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.granito.concordion.ext;
+
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
+
+/**
+ * Post-processes the captured PNG screenshots: crops them to a clip
+ * region, downscales them to a maximum width and re-encodes them in
+ * the requested format with the requested compression quality.
+ */
+final class ScreenshotProcessor {
+    /** The format of the captured screenshots. */
+    static final String PNG = "png";
+
+    private final String format;
+
+    private final Float quality;
+
+    private final int maxWidth;
+
+    private final Rectangle clip;
+
+    /**
+     * Creates a new {@link ScreenshotProcessor}.
+     *
+     * @param format the image format to write
+     * @param quality the compression quality between {@code 0} and
+     * {@code 1}, or {@code null} for the default compression
+     * @param maxWidth the maximum image width, or {@code 0} to keep
+     * the original width
+     * @param clip the region of the screenshot to keep, or {@code null}
+     * to keep the whole screenshot
+     */
+    ScreenshotProcessor(String format, Float quality, int maxWidth,
+        Rectangle clip)
+    {
+        this.format = format;
+        this.quality = quality;
+        this.maxWidth = maxWidth;
+        this.clip = clip;
+    }
+
+    /**
+     * Indicates whether the captured screenshots are written as is.
+     *
+     * @return {@code true} if no processing is configured,
+     * {@code false} otherwise
+     */
+    boolean isIdentity()
+    {
+        return PNG.equals(format) && quality == null && maxWidth <= 0 &&
+            clip == null;
+    }
+
+    /**
+     * Returns the dimensions of the written image.
+     *
+     * @param size the dimensions of the captured screenshot
+     * @return the dimensions after cropping and downscaling
+     */
+    Dimension size(Dimension size)
+    {
+        return scale(region(size).getSize());
+    }
+
+    /**
+     * Writes the processed screenshot to the output stream, which is
+     * left open.
+     *
+     * @param screenshot the captured PNG screenshot
+     * @param size the dimensions of the captured screenshot
+     * @param out the output stream
+     * @throws IOException when an I/O error occurs
+     */
+    void write(byte[] screenshot, Dimension size, OutputStream out)
+        throws IOException
+    {
+        var region = region(size);
+        var scaled = scale(region.getSize());
+
+        if (PNG.equals(format) && quality == null && scaled.equals(size)) {
+            out.write(screenshot);
+
+            return;
+        }
+
+        var image = ImageIO.read(new ByteArrayInputStream(screenshot));
+
+        if (image == null)
+            throw new IOException("unable to read ." + PNG + " image");
+
+        if (!region.getSize().equals(size))
+            image = image.getSubimage(region.x, region.y, region.width,
+                region.height);
+
+        var writers = ImageIO.getImageWritersByFormatName(format);
+
+        if (!writers.hasNext())
+            throw new IOException("unable to write ." + format + " image");
+
+        var writer = writers.next();
+
+        try (var ios = new MemoryCacheImageOutputStream(out)) {
+            var param = writer.getDefaultWriteParam();
+
+            if (quality != null && param.canWriteCompressed()) {
+                param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                param.setCompressionQuality(quality);
+            }
+
+            writer.setOutput(ios);
+            writer.write(null, new IIOImage(convert(image, scaled), null,
+                null), param);
+        } finally {
+            writer.dispose();
+        }
+    }
+
+    private Dimension scale(Dimension size)
+    {
+        if (maxWidth <= 0 || size.width <= maxWidth)
+            return size;
+
+        return new Dimension(maxWidth, (int)Math.max(1,
+            Math.round((double)size.height * maxWidth / size.width)));
+    }
+
+    private Rectangle region(Dimension size)
+    {
+        var bounds = new Rectangle(size);
+
+        if (clip == null)
+            return bounds;
+
+        var region = clip.intersection(bounds);
+
+        return region.isEmpty() ? bounds : region;
+    }
+
+    private BufferedImage convert(BufferedImage image, Dimension size)
+    {
+        var opaque = !PNG.equals(format);
+
+        if (image.getWidth() == size.width &&
+            (!opaque || !image.getColorModel().hasAlpha()))
+            return image;
+
+        var converted = new BufferedImage(size.width, size.height,
+            opaque ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB);
+        var graphics = converted.createGraphics();
+
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION,
+                RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+
+            if (opaque) {
+                graphics.setColor(Color.WHITE);
+                graphics.fillRect(0, 0, size.width, size.height);
+            }
+
+            graphics.drawImage(image, 0, 0, size.width, size.height, null);
+        } finally {
+            graphics.dispose();
+        }
+
+        return converted;
+    }
+}
@@ -17,27 +17,100 @@
 package io.granito.concordion.ext;
 
 import static javax.imageio.ImageIO.getImageReadersBySuffix;
+import static org.concordion.internal.util.Check.notNull;
 
 import java.awt.Dimension;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 import javax.imageio.stream.MemoryCacheImageInputStream;
 
+import org.concordion.api.Result;
+import org.concordion.api.ResultRecorder;
+import org.concordion.api.extension.ConcordionExtender;
+import org.concordion.api.listener.ExampleEvent;
+import org.concordion.api.listener.ExampleListener;
 import org.concordion.ext.ScreenshotExtension;
 import org.concordion.ext.ScreenshotTaker;
 import org.concordion.ext.ScreenshotUnavailableException;
+import org.openqa.selenium.By;
 import org.openqa.selenium.OutputType;
+import org.openqa.selenium.Rectangle;
 import org.openqa.selenium.TakesScreenshot;
 import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
 
 /**
  * A Concordion extension that captures screenshots using Selenium
- * {@link WebDriver} as PNG images.
+ * {@link WebDriver} as PNG images. The screenshots can be limited to
+ * a web element or a region of the page. Optionally, they can be
+ * downscaled and re-encoded before they are written, and they can be
+ * written asynchronously by a background thread, see
+ * {@link #setAsynchronous(boolean)}.
  */
 public class SeleniumScreenshotExtension extends ScreenshotExtension
-    implements ScreenshotTaker {
-    private WebDriver webDriver;
+    implements ScreenshotTaker, ExampleListener {
+    private static final byte[] PNG_SIGNATURE =
+        { (byte)0x89, 'P', 'N', 'G', '\r', '\n', 0x1a, '\n' };
+
+    private static final byte[] IHDR = { 'I', 'H', 'D', 'R' };
+
+    private static final int IHDR_WIDTH_OFFSET = 16;
+
+    private static final int IHDR_HEIGHT_OFFSET = 20;
+
+    private static final int IHDR_END = 24;
+
+    private static final int QUEUE_CAPACITY = 16;
+
+    private static final long KEEP_ALIVE_SECONDS = 10;
+
+    private static final boolean DEV_TOOLS_AVAILABLE = isDevToolsAvailable();
+
+    private static final List<String> FORMATS =
+        List.of(ScreenshotProcessor.PNG, "jpg");
+
+    private final ThreadLocal<List<Future<?>>> pending = new ThreadLocal<>();
+
+    private final ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1,
+        KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+        new ArrayBlockingQueue<>(QUEUE_CAPACITY), runnable -> {
+            var thread = new Thread(runnable, "concordion-screenshot");
+
+            thread.setDaemon(true);
+
+            return thread;
+        }, new ThreadPoolExecutor.CallerRunsPolicy());
+
+    private final ThreadLocal<WebDriver> boundWebDriver =
+        new ThreadLocal<>();
+
+    private final ThreadLocal<Region> boundRegion = new ThreadLocal<>();
+
+    private volatile Supplier<WebDriver> webDriverSupplier = () -> null;
+
+    private volatile boolean asynchronous = false;
+
+    private volatile String imageFormat = ScreenshotProcessor.PNG;
+
+    private volatile Float compressionQuality;
+
+    private volatile int maxImageWidth;
+
+    private volatile boolean devToolsCapture = false;
+
+    private volatile By scope;
+
+    private volatile Rectangle clip;
 
     /**
      * Creates a new {@link SeleniumScreenshotExtension}.
@@ -45,21 +118,271 @@ public class SeleniumScreenshotExtension extends ScreenshotExtension
     public SeleniumScreenshotExtension()
     {
         setScreenshotTaker(this);
+        executor.allowCoreThreadTimeOut(true);
     }
 
     /**
-     * Sets the {@link WebDriver} instance to use for taking screenshots.
+     * Registers the extension to the {@link ConcordionExtender}.
+     *
+     * @param extender the Concordion extender for the registration
+     */
+    @Override
+    public void addTo(ConcordionExtender extender)
+    {
+        extender.withExampleListener(this);
+        super.addTo(extender);
+    }
+
+    /**
+     * Sets the {@link WebDriver} instance to use for taking screenshots
+     * by all threads, unless a thread has its own instance bound with
+     * {@link #bindWebDriver(WebDriver)}.
      *
      * @param webDriver the {@code WebDriver} instance
      */
     public void setWebDriver(WebDriver webDriver)
     {
-        this.webDriver = webDriver;
+        webDriverSupplier = () -> webDriver;
+    }
+
+    /**
+     * Sets the supplier of the {@link WebDriver} instance to use for
+     * taking screenshots. The supplier is called on the thread taking
+     * the screenshot, each time a screenshot is taken, so it can look
+     * up the browser used by the current example, for example, in
+     * a pool of browsers used by the specifications running in parallel.
+     * A {@code WebDriver} bound to the thread with
+     * {@link #bindWebDriver(WebDriver)} takes precedence.
+     *
+     * @param webDriverSupplier the supplier of the {@code WebDriver}
+     * instance, which may supply {@code null} if none is available
+     */
+    public void setWebDriverSupplier(Supplier<WebDriver> webDriverSupplier)
+    {
+        notNull(webDriverSupplier, "WebDriver supplier must not be null");
+
+        this.webDriverSupplier = webDriverSupplier;
+    }
+
+    /**
+     * Binds the {@link WebDriver} instance to the current thread, so that
+     * the screenshots taken by the thread use it instead of the instance
+     * set with {@link #setWebDriver(WebDriver)} or supplied by
+     * the {@linkplain #setWebDriverSupplier(Supplier) supplier}.
+     *
+     * @param webDriver the {@code WebDriver} instance
+     */
+    public void bindWebDriver(WebDriver webDriver)
+    {
+        boundWebDriver.set(webDriver);
+    }
+
+    /**
+     * Removes the {@link WebDriver} instance bound to the current thread.
+     */
+    public void unbindWebDriver()
+    {
+        boundWebDriver.remove();
+    }
+
+    /**
+     * Enables or disables asynchronous writing of the screenshots. When
+     * enabled, the screenshot is still captured by the example thread,
+     * but it is written to the file by a background thread; the pending
+     * writes of an example are completed when the example finishes.
+     * A failed write marks the example element with the {@code failure}
+     * style class and records an exception result. The screenshots taken
+     * outside of examples, or when the queue is full, are written by
+     * the thread taking them. The default is {@code false}.
+     *
+     * @param asynchronous {@code true} to write screenshots asynchronously
+     */
+    public void setAsynchronous(boolean asynchronous)
+    {
+        this.asynchronous = asynchronous;
+    }
+
+    /**
+     * Enables or disables taking screenshots with the Chrome DevTools
+     * Protocol {@code Page.captureScreenshot} command, when
+     * the {@link WebDriver} supports it (e.g. Chrome or Edge drivers).
+     * This avoids some of the overhead of the WebDriver screenshot
+     * endpoint. It requires the optional Selenium Chromium driver on
+     * the class path. If the command fails, or the {@code WebDriver}
+     * does not support it, the screenshot is taken with
+     * {@link TakesScreenshot}. The default is {@code false}.
+     *
+     * @param devToolsCapture {@code true} to take screenshots using
+     * the Chrome DevTools Protocol when available
+     */
+    public void setDevToolsCapture(boolean devToolsCapture)
+    {
+        this.devToolsCapture = devToolsCapture;
+    }
+
+    /**
+     * Limits the screenshots to a web element. When set, the screenshots
+     * capture only the first element located by the given locator,
+     * using {@link WebElement#getScreenshotAs(OutputType)}, which is
+     * faster and produces smaller images than capturing the whole page.
+     * If no element is found, the whole page is captured. The default
+     * is {@code null}, meaning that the whole page is captured. The scope
+     * applies to all threads, unless a thread has its own region bound
+     * with {@link #bindRegion(By, Rectangle)}.
+     *
+     * @param scope the locator of the element to capture,
+     * or {@code null} to capture the whole page
+     */
+    public void setScope(By scope)
+    {
+        this.scope = scope;
+    }
+
+    /**
+     * Limits the screenshots to a region. When set, the captured
+     * screenshots (of the whole page or of the {@linkplain #setScope(By)
+     * scope} element) are cropped to the given region, in image pixels
+     * relative to the top left corner of the screenshot. If the region
+     * lies outside of the screenshot, the whole screenshot is kept.
+     * When the whole page is captured with the Chrome DevTools Protocol,
+     * only the region is captured. The default is {@code null}, meaning
+     * that the screenshots are not cropped. The clip applies to all
+     * threads, unless a thread has its own region bound with
+     * {@link #bindRegion(By, Rectangle)}.
+     *
+     * @param clip the region to keep, or {@code null} to keep the whole
+     * screenshot
+     */
+    public void setClip(Rectangle clip)
+    {
+        this.clip = clip;
+    }
+
+    /**
+     * Binds the {@linkplain #setScope(By) scope} and
+     * the {@linkplain #setClip(Rectangle) clip} to the current thread,
+     * so that the screenshots taken by the thread use them instead of
+     * the ones set for all threads. This allows examples executed in
+     * parallel to capture different parts of the page.
+     *
+     * @param scope the locator of the element to capture,
+     * or {@code null} to capture the whole page
+     * @param clip the region to keep, or {@code null} to keep the whole
+     * screenshot
+     */
+    public void bindRegion(By scope, Rectangle clip)
+    {
+        boundRegion.set(new Region(scope, clip));
+    }
+
+    /**
+     * Removes the scope and the clip bound to the current thread.
+     */
+    public void unbindRegion()
+    {
+        boundRegion.remove();
+    }
+
+    /**
+     * Sets the format of the written screenshots, either {@code "png"}
+     * or {@code "jpg"}. The screenshots in other formats than PNG are
+     * re-encoded by Java Image I/O. The default is {@code "png"}.
+     *
+     * @param imageFormat the image format
+     * @throws IllegalArgumentException when the format is not supported
+     */
+    public void setImageFormat(String imageFormat)
+    {
+        if (!FORMATS.contains(imageFormat))
+            throw new IllegalArgumentException(
+                "image format must be one of " + FORMATS + ", was: " +
+                imageFormat);
+
+        this.imageFormat = imageFormat;
+    }
+
+    /**
+     * Sets the compression quality of the written screenshots, between
+     * {@code 0} (highest compression) and {@code 1} (highest quality).
+     * For JPEG images, it trades image quality for size. PNG images stay
+     * lossless, but are re-deflated at the level derived from the
+     * quality, so {@code 0} gives the smallest files. By default, PNG
+     * screenshots are written as captured and JPEG images are written
+     * with the default quality of the encoder.
+     *
+     * @param compressionQuality the compression quality
+     * @throws IllegalArgumentException when the quality is out of range
+     */
+    public void setCompressionQuality(float compressionQuality)
+    {
+        if (compressionQuality < 0 || compressionQuality > 1)
+            throw new IllegalArgumentException(
+                "compression quality must be between 0 and 1, was: " +
+                compressionQuality);
+
+        this.compressionQuality = compressionQuality;
+    }
+
+    /**
+     * Sets the maximum width of the written screenshots. Wider
+     * screenshots are downscaled preserving the aspect ratio. Note that
+     * unlike {@link #setMaxWidth(int)}, which limits the width of
+     * the image in the output HTML, this affects the written image.
+     * The default is {@code 0}, meaning that screenshots are written
+     * in their original size.
+     *
+     * @param maxImageWidth the maximum image width in pixels
+     */
+    public void setMaxImageWidth(int maxImageWidth)
+    {
+        this.maxImageWidth = Math.max(0, maxImageWidth);
+    }
+
+    /**
+     * Starts collecting the pending asynchronous screenshot writes of
+     * the example executed by the current thread.
+     *
+     * @param event the example event
+     */
+    @Override
+    public void beforeExample(ExampleEvent event)
+    {
+        pending.set(new ArrayList<>());
+    }
+
+    /**
+     * Waits for the pending asynchronous screenshot writes of the example
+     * to complete. A failed write marks the example element with
+     * the {@code failure} style class and a {@code title} describing
+     * the error, and records an exception result for the example.
+     *
+     * @param event the example event
+     */
+    @Override
+    public void afterExample(ExampleEvent event)
+    {
+        var writes = pending.get();
+
+        pending.remove();
+
+        if (writes == null)
+            return;
+
+        for (var write: writes)
+            try {
+                write.get();
+            } catch (ExecutionException ex) {
+                fail(event, ex.getCause());
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                fail(event, ex);
+            }
     }
 
     /**
      * Takes a screenshot using the configured {@link WebDriver} and
-     * writes it to the provided output stream.
+     * writes it to the provided output stream. In the asynchronous mode,
+     * the stream is written and closed by a background thread.
      *
      * @param outputStream the {@code OutputStream} for the screenshot
      * @return the dimensions of the captured screenshot
@@ -71,39 +394,186 @@ public void setWebDriver(WebDriver webDriver)
     public Dimension writeScreenshotTo(OutputStream outputStream)
         throws IOException
     {
-        try (var out = outputStream) {
-            if (webDriver == null)
-                throw new ScreenshotUnavailableException(
-                    "WebDriver is not configured");
+        var region = boundRegion.get();
 
-            var screenshot = ((TakesScreenshot)webDriver)
-                .getScreenshotAs(OutputType.BYTES);
+        if (region == null)
+            region = new Region(scope, clip);
 
-            out.write(screenshot);
+        var writes = asynchronous ? pending.get() : null;
 
-            return extractDimensions(screenshot);
-        } catch (ClassCastException ex) {
-            throw new ScreenshotUnavailableException(
-                "WebDriver does not support taking screenshots");
+        if (writes == null)
+            try (var out = outputStream) {
+                var screenshot = takeScreenshot(region);
+                var processor = processor(screenshot);
+                var image = screenshot.image();
+
+                if (processor.isIdentity()) {
+                    out.write(image);
+
+                    return extractDimensions(image);
+                }
+
+                var dimension = extractDimensions(image);
+
+                processor.write(image, dimension, out);
+
+                return processor.size(dimension);
+            }
+
+        Screenshot screenshot;
+        Dimension dimension;
+
+        try {
+            screenshot = takeScreenshot(region);
+            dimension = extractDimensions(screenshot.image());
+        } catch (IOException | RuntimeException ex) {
+            try {
+                outputStream.close();
+            } catch (IOException suppressed) {
+                ex.addSuppressed(suppressed);
+            }
+
+            throw ex;
         }
+
+        var processor = processor(screenshot);
+
+        writes.add(executor.submit(() -> {
+            try (var out = outputStream) {
+                processor.write(screenshot.image(), dimension, out);
+            }
+
+            return null;
+        }));
+
+        return processor.size(dimension);
     }
 
     /**
      * Returns the file extension for the screenshots taken by this
      * extension.
      *
-     * @return always {@code "png"} in this implementation
+     * @return the configured image format, {@code "png"} by default
      */
     @Override
     public String getFileExtension()
     {
-        return "png";
+        return imageFormat;
+    }
+
+    private Screenshot takeScreenshot(Region region)
+    {
+        var webDriver = webDriver();
+
+        if (webDriver == null)
+            throw new ScreenshotUnavailableException(
+                "WebDriver is not configured");
+
+        if (!(webDriver instanceof TakesScreenshot driver))
+            throw new ScreenshotUnavailableException(
+                "WebDriver does not support taking screenshots");
+
+        if (region.scope() != null) {
+            var elements = webDriver.findElements(region.scope());
+
+            if (!elements.isEmpty())
+                return new Screenshot(elements.get(0)
+                    .getScreenshotAs(OutputType.BYTES), region.clip());
+        }
+
+        if (devToolsCapture && DEV_TOOLS_AVAILABLE) {
+            var screenshot = DevToolsCapture.capture(webDriver, region.clip());
+
+            if (screenshot != null)
+                return screenshot;
+        }
+
+        return new Screenshot(driver.getScreenshotAs(OutputType.BYTES),
+            region.clip());
+    }
+
+    private WebDriver webDriver()
+    {
+        var webDriver = boundWebDriver.get();
+
+        return webDriver != null ? webDriver : webDriverSupplier.get();
+    }
+
+    private static boolean isDevToolsAvailable()
+    {
+        try {
+            Class.forName("org.openqa.selenium.chromium.HasCdp", false,
+                SeleniumScreenshotExtension.class.getClassLoader());
+
+            return true;
+        } catch (ClassNotFoundException | LinkageError ex) {
+            return false;
+        }
+    }
+
+    private ScreenshotProcessor processor(Screenshot screenshot)
+    {
+        var clip = screenshot.clip();
+
+        return new ScreenshotProcessor(imageFormat, compressionQuality,
+            maxImageWidth, clip == null ? null : new java.awt.Rectangle(
+                clip.getX(), clip.getY(), clip.getWidth(), clip.getHeight()));
+    }
+
+    private void fail(ExampleEvent event, Throwable cause)
+    {
+        var element = event.getElement();
+
+        element.addStyleClass("failure");
+        element.addAttribute("title", "unable to write screenshot: " +
+            cause.getMessage());
+
+        if (event.getResultSummary() instanceof ResultRecorder recorder)
+            recorder.record(Result.EXCEPTION);
     }
 
     private Dimension extractDimensions(byte[] screenshot)
         throws IOException
     {
-        var ext = getFileExtension();
+        var dimension = readPngHeader(screenshot);
+
+        return dimension != null ? dimension : readImage(screenshot);
+    }
+
+    /**
+     * Reads the dimensions from the {@code IHDR} chunk, which must
+     * immediately follow the signature of a PNG image.
+     *
+     * @param image the image
+     * @return the image dimensions or {@code null} if the image does not
+     * start with a valid PNG header
+     */
+    private Dimension readPngHeader(byte[] image)
+    {
+        if (image.length < IHDR_END ||
+            !Arrays.equals(image, 0, PNG_SIGNATURE.length, PNG_SIGNATURE, 0,
+                PNG_SIGNATURE.length) ||
+            !Arrays.equals(image, IHDR_WIDTH_OFFSET - IHDR.length,
+                IHDR_WIDTH_OFFSET, IHDR, 0, IHDR.length))
+            return null;
+
+        var width = readInt(image, IHDR_WIDTH_OFFSET);
+        var height = readInt(image, IHDR_HEIGHT_OFFSET);
+
+        return width > 0 && height > 0 ? new Dimension(width, height) : null;
+    }
+
+    private int readInt(byte[] bytes, int offset)
+    {
+        return (bytes[offset] & 0xff) << 24 |
+            (bytes[offset + 1] & 0xff) << 16 |
+            (bytes[offset + 2] & 0xff) << 8 |
+            bytes[offset + 3] & 0xff;
+    }
+
+    private Dimension readImage(byte[] screenshot) throws IOException
+    {
+        var ext = ScreenshotProcessor.PNG;
         var readers = getImageReadersBySuffix(ext);
 
         while (readers.hasNext()) {
@@ -124,4 +594,17 @@ private Dimension extractDimensions(byte[] screenshot)
 
         throw new IOException("unable to read ." + ext + " image");
     }
+
+    private record Region(By scope, Rectangle clip) {
+    }
+
+    /**
+     * A captured screenshot.
+     *
+     * @param image the PNG image
+     * @param clip the region of the image to keep, or {@code null} if
+     * the image has been captured clipped already
+     */
+    record Screenshot(byte[] image, Rectangle clip) {
+    }
 }
@@ -26,8 +26,19 @@
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoInteractions;
 
+import java.awt.Dimension;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
 import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import javax.imageio.ImageIO;
 
 import io.granito.concordion.test.TestOutputStream;
 import org.concordion.api.Command;
@@ -36,7 +47,9 @@
 import org.concordion.api.Evaluator;
 import org.concordion.api.Fixture;
 import org.concordion.api.Resource;
+import org.concordion.api.Result;
 import org.concordion.api.ResultRecorder;
+import org.concordion.api.ResultSummary;
 import org.concordion.api.Target;
 import org.concordion.api.extension.ConcordionExtender;
 import org.concordion.api.listener.AssertEqualsListener;
@@ -46,6 +59,7 @@
 import org.concordion.api.listener.AssertTrueListener;
 import org.concordion.api.listener.ConcordionBuildEvent;
 import org.concordion.api.listener.ConcordionBuildListener;
+import org.concordion.api.listener.ExampleEvent;
 import org.concordion.api.listener.SpecificationProcessingEvent;
 import org.concordion.api.listener.SpecificationProcessingListener;
 import org.concordion.api.listener.ThrowableCaughtEvent;
@@ -59,10 +73,14 @@
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoSettings;
 import org.mockito.quality.Strictness;
+import org.openqa.selenium.By;
 import org.openqa.selenium.OutputType;
+import org.openqa.selenium.Rectangle;
 import org.openqa.selenium.TakesScreenshot;
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.chromium.HasCdp;
 
 @MockitoSettings(strictness = Strictness.LENIENT)
 class SeleniumScreenshotExtensionTest {
@@ -77,19 +95,30 @@ class SeleniumScreenshotExtensionTest {
 
     private final TestOutputStream out = new TestOutputStream();
 
+    private final Element example = new Element("div");
+
     @Mock
     private WebDriver genericWebDriver;
 
     @Mock
     private ScreenshotWebDriver screenshotWebDriver;
 
+    @Mock
+    private ScreenshotWebDriver otherWebDriver;
+
+    @Mock
+    private CdpWebDriver cdpWebDriver;
+
+    @Mock
+    private WebElement webElement;
+
     @Mock
     private ConcordionExtender extender;
 
     @Mock
     private Evaluator evaluator;
 
-    @Mock
+    @Mock(extraInterfaces = ResultSummary.class)
     private ResultRecorder recorder;
 
     @Mock
@@ -123,6 +152,9 @@ class SeleniumScreenshotExtensionTest {
 
     private SpecificationProcessingEvent processingEvent;
 
+    @Mock
+    private ExampleEvent exampleEvent;
+
     @BeforeEach
     void setUp()
     {
@@ -130,6 +162,9 @@ void setUp()
         processingEvent = new SpecificationProcessingEvent(spec,
             new Element("html"));
 
+        doReturn(example).when(exampleEvent).getElement();
+        doReturn(recorder).when(exampleEvent).getResultSummary();
+
         doReturn(extender).when(extender)
             .withBuildListener(buildListener.capture());
         doReturn(extender).when(extender)
@@ -152,6 +187,7 @@ void registersItselfWhenAddedToExtender()
     {
         extension.addTo(extender);
 
+        verify(extender).withExampleListener(extension);
         verify(extender).withSpecificationProcessingListener(
             any(ScreenshotEmbedder.class));
         verify(extender).withBuildListener(any(ScreenshotEmbedder.class));
@@ -276,6 +312,267 @@ void propagatesExceptionWhenTakingScreenshotFails()
                 assertThat(out.isClosed()).isTrue();
             }
 
+            @Test
+            void readsDimensionsFromPngHeader() throws Exception
+            {
+                var header = Arrays.copyOf(data(), 33);
+
+                header[18] = 0x05;
+                header[19] = 0x00;
+                header[22] = 0x02;
+                header[23] = (byte)0xd0;
+
+                doReturn(header).when(screenshotWebDriver)
+                    .getScreenshotAs(OutputType.BYTES);
+
+                assertThat(extension.writeScreenshotTo(out))
+                    .isEqualTo(new Dimension(1280, 720));
+                assertThat(out.toByteArray()).isEqualTo(header);
+            }
+
+            @Test
+            void fallsBackToImageReaderWhenPngHeaderIsNotValid()
+            {
+                var content = data();
+
+                content[12] = 'i';
+
+                doReturn(content).when(screenshotWebDriver)
+                    .getScreenshotAs(OutputType.BYTES);
+
+                assertThatThrownBy(() -> extension.writeScreenshotTo(out))
+                    .isInstanceOf(IOException.class)
+                    .hasMessage("unable to read .png image");
+            }
+
+            @Test
+            void usesWebDriverBoundToThread() throws Exception
+            {
+                var content = data();
+
+                doReturn(content).when(otherWebDriver)
+                    .getScreenshotAs(OutputType.BYTES);
+
+                extension.bindWebDriver(otherWebDriver);
+
+                try {
+                    extension.writeScreenshotTo(out);
+                } finally {
+                    extension.unbindWebDriver();
+                }
+
+                assertThat(out.toByteArray()).isEqualTo(content);
+
+                verifyNoInteractions(screenshotWebDriver);
+            }
+
+            @Test
+            void usesSharedWebDriverInOtherThreads() throws Exception
+            {
+                var content = data();
+
+                doReturn(content).when(screenshotWebDriver)
+                    .getScreenshotAs(OutputType.BYTES);
+
+                extension.bindWebDriver(otherWebDriver);
+
+                try {
+                    CompletableFuture.runAsync(() -> {
+                        try {
+                            extension.writeScreenshotTo(out);
+                        } catch (IOException ex) {
+                            throw new UncheckedIOException(ex);
+                        }
+                    }).get(10, TimeUnit.SECONDS);
+                } finally {
+                    extension.unbindWebDriver();
+                }
+
+                assertThat(out.toByteArray()).isEqualTo(content);
+
+                verifyNoInteractions(otherWebDriver);
+            }
+
+            @Test
+            void usesWebDriverFromSupplier() throws Exception
+            {
+                var content = data();
+
+                doReturn(content).when(otherWebDriver)
+                    .getScreenshotAs(OutputType.BYTES);
+
+                extension.setWebDriverSupplier(() -> otherWebDriver);
+                extension.writeScreenshotTo(out);
+
+                assertThat(out.toByteArray()).isEqualTo(content);
+
+                verifyNoInteractions(screenshotWebDriver);
+            }
+
+            @Test
+            void capturesWithDevToolsWhenEnabled() throws Exception
+            {
+                var content = data();
+
+                doReturn(Map.of("data",
+                        Base64.getEncoder().encodeToString(content)))
+                    .when(cdpWebDriver).executeCdpCommand(
+                        "Page.captureScreenshot", Map.of("format", "png"));
+
+                extension.setWebDriver(cdpWebDriver);
+                extension.setDevToolsCapture(true);
+
+                assertThat(extension.writeScreenshotTo(out))
+                    .isEqualTo(new Dimension(1, 1));
+                assertThat(out.toByteArray()).isEqualTo(content);
+
+                verify(cdpWebDriver, never())
+                    .getScreenshotAs(OutputType.BYTES);
+            }
+
+            @Test
+            void capturesOnlyClipWithDevTools() throws Exception
+            {
+                var content = data();
+                var clip = Map.of("x", 15.0, "y", 110.0, "width", 15.0,
+                    "height", 20.0, "scale", 1);
+
+                doReturn(Map.of(
+                        "cssVisualViewport", Map.of("pageX", 10, "pageY", 100,
+                            "clientWidth", 400, "clientHeight", 300),
+                        "visualViewport", Map.of("clientWidth", 800)))
+                    .when(cdpWebDriver)
+                    .executeCdpCommand("Page.getLayoutMetrics", Map.of());
+                doReturn(Map.of("data",
+                        Base64.getEncoder().encodeToString(content)))
+                    .when(cdpWebDriver).executeCdpCommand(
+                        "Page.captureScreenshot",
+                        Map.of("format", "png", "clip", clip));
+
+                extension.setWebDriver(cdpWebDriver);
+                extension.setDevToolsCapture(true);
+                extension.setClip(new Rectangle(10, 20, 30, 40));
+
+                assertThat(extension.writeScreenshotTo(out))
+                    .isEqualTo(new Dimension(1, 1));
+                assertThat(out.toByteArray()).isEqualTo(content);
+
+                verify(cdpWebDriver, never())
+                    .getScreenshotAs(OutputType.BYTES);
+            }
+
+            @Test
+            void fallsBackToWebDriverWhenDevToolsCaptureFails()
+                throws Exception
+            {
+                var content = data();
+
+                doThrow(new WebDriverException("cdp")).when(cdpWebDriver)
+                    .executeCdpCommand(any(), any());
+                doReturn(content).when(cdpWebDriver)
+                    .getScreenshotAs(OutputType.BYTES);
+
+                extension.setWebDriver(cdpWebDriver);
+                extension.setDevToolsCapture(true);
+                extension.writeScreenshotTo(out);
+
+                assertThat(out.toByteArray()).isEqualTo(content);
+            }
+
+            @Test
+            void doesNotUseDevToolsByDefault() throws Exception
+            {
+                var content = data();
+
+                doReturn(content).when(cdpWebDriver)
+                    .getScreenshotAs(OutputType.BYTES);
+
+                extension.setWebDriver(cdpWebDriver);
+                extension.writeScreenshotTo(out);
+
+                assertThat(out.toByteArray()).isEqualTo(content);
+
+                verify(cdpWebDriver, never()).executeCdpCommand(any(), any());
+            }
+
+            @Test
+            void capturesScopeElementWhenFound() throws Exception
+            {
+                var content = data();
+                var scope = By.id("widget");
+
+                doReturn(List.of(webElement)).when(screenshotWebDriver)
+                    .findElements(scope);
+                doReturn(content).when(webElement)
+                    .getScreenshotAs(OutputType.BYTES);
+
+                extension.setScope(scope);
+
+                assertThat(extension.writeScreenshotTo(out))
+                    .isEqualTo(new Dimension(1, 1));
+                assertThat(out.toByteArray()).isEqualTo(content);
+
+                verify(screenshotWebDriver, never())
+                    .getScreenshotAs(OutputType.BYTES);
+            }
+
+            @Test
+            void capturesRegionBoundToThread() throws Exception
+            {
+                var content = data();
+                var scope = By.id("widget");
+
+                doReturn(List.of(webElement)).when(screenshotWebDriver)
+                    .findElements(scope);
+                doReturn(content).when(webElement)
+                    .getScreenshotAs(OutputType.BYTES);
+                doReturn(content).when(screenshotWebDriver)
+                    .getScreenshotAs(OutputType.BYTES);
+
+                extension.bindRegion(scope, null);
+
+                try {
+                    CompletableFuture.runAsync(() -> {
+                        try {
+                            extension.writeScreenshotTo(new TestOutputStream());
+                        } catch (IOException ex) {
+                            throw new UncheckedIOException(ex);
+                        }
+                    }).get(10, TimeUnit.SECONDS);
+
+                    verifyNoInteractions(webElement);
+
+                    extension.writeScreenshotTo(out);
+                } finally {
+                    extension.unbindRegion();
+                }
+
+                assertThat(out.toByteArray()).isEqualTo(content);
+
+                verify(webElement).getScreenshotAs(OutputType.BYTES);
+                verify(screenshotWebDriver).getScreenshotAs(OutputType.BYTES);
+            }
+
+            @Test
+            void capturesWholePageWhenScopeElementIsNotFound()
+                throws Exception
+            {
+                var content = data();
+                var scope = By.id("widget");
+
+                doReturn(List.of()).when(screenshotWebDriver)
+                    .findElements(scope);
+                doReturn(content).when(screenshotWebDriver)
+                    .getScreenshotAs(OutputType.BYTES);
+
+                extension.setScope(scope);
+                extension.writeScreenshotTo(out);
+
+                assertThat(out.toByteArray()).isEqualTo(content);
+
+                verifyNoInteractions(webElement);
+            }
+
             @Test
             void throwsExceptionWhenScreenshotIsNotValidPng()
             {
@@ -601,6 +898,253 @@ void doesNothingOnThrowableCaughtWhenDisabled()
                 assertThat(event.getElement().hasChildren()).isFalse();
             }
 
+            @Nested
+            class WhenAsynchronous {
+                @BeforeEach
+                void setUp()
+                {
+                    extension.setAsynchronous(true);
+                }
+
+                @Test
+                void writesFileBeforeExampleFinishes() throws Exception
+                {
+                    var call = call();
+                    var content = data();
+
+                    doReturn(content).when(screenshotWebDriver)
+                        .getScreenshotAs(OutputType.BYTES);
+
+                    extension.beforeExample(exampleEvent);
+                    command.getValue()
+                        .execute(call, evaluator, recorder, fixture);
+
+                    verifyScreenshotIsAdded(call.getElement());
+
+                    extension.afterExample(exampleEvent);
+
+                    assertThat(out.toByteArray()).isEqualTo(content);
+                    assertThat(out.isClosed()).isTrue();
+                    assertThat(example.getAttributeValue("class")).isNull();
+                }
+
+                @Test
+                void marksExampleAndRecordsExceptionWhenWritingFileFails()
+                    throws Exception
+                {
+                    out.setWriteException(new IOException("write"));
+
+                    doReturn(data()).when(screenshotWebDriver)
+                        .getScreenshotAs(OutputType.BYTES);
+
+                    extension.beforeExample(exampleEvent);
+                    command.getValue()
+                        .execute(call(), evaluator, recorder, fixture);
+                    extension.afterExample(exampleEvent);
+
+                    assertThat(out.isClosed()).isTrue();
+                    assertThat(example.getAttributeValue("class"))
+                        .contains("failure");
+                    assertThat(example.getAttributeValue("title"))
+                        .isEqualTo("unable to write screenshot: write");
+                    verify(recorder).record(Result.EXCEPTION);
+                }
+
+                @Test
+                void writesFileImmediatelyOutsideOfExample() throws Exception
+                {
+                    var content = data();
+
+                    doReturn(content).when(screenshotWebDriver)
+                        .getScreenshotAs(OutputType.BYTES);
+
+                    command.getValue()
+                        .execute(call(), evaluator, recorder, fixture);
+
+                    assertThat(out.toByteArray()).isEqualTo(content);
+                    assertThat(out.isClosed()).isTrue();
+                }
+
+                @Test
+                void closesStreamWhenScreenshotIsNotValidPng()
+                {
+                    var cmd = command.getValue();
+                    var call = call();
+
+                    doReturn("this is not a png".getBytes())
+                        .when(screenshotWebDriver)
+                        .getScreenshotAs(OutputType.BYTES);
+
+                    assertThatThrownBy(() -> cmd.execute(call, evaluator,
+                            recorder, fixture))
+                        .isInstanceOf(RuntimeException.class)
+                        .rootCause()
+                        .hasMessageContaining("unable to read .png");
+
+                    assertThat(out.toByteArray()).isEmpty();
+                    assertThat(out.isClosed()).isTrue();
+                }
+            }
+
+            @Nested
+            class WhenProcessing {
+                private final byte[] content = image(200, 100);
+
+                @BeforeEach
+                void setUp()
+                {
+                    doReturn(content).when(screenshotWebDriver)
+                        .getScreenshotAs(OutputType.BYTES);
+                }
+
+                @Test
+                void downscalesScreenshotToMaxImageWidth() throws Exception
+                {
+                    extension.setMaxImageWidth(50);
+
+                    assertThat(extension.writeScreenshotTo(out))
+                        .isEqualTo(new Dimension(50, 25));
+
+                    var written = ImageIO.read(
+                        new ByteArrayInputStream(out.toByteArray()));
+
+                    assertThat(written.getWidth()).isEqualTo(50);
+                    assertThat(written.getHeight()).isEqualTo(25);
+                    assertThat(out.isClosed()).isTrue();
+                }
+
+                @Test
+                void keepsScreenshotNarrowerThanMaxImageWidth()
+                    throws Exception
+                {
+                    extension.setMaxImageWidth(400);
+
+                    assertThat(extension.writeScreenshotTo(out))
+                        .isEqualTo(new Dimension(200, 100));
+                    assertThat(out.toByteArray()).isEqualTo(content);
+                }
+
+                @Test
+                void recompressesPngLosslessly() throws Exception
+                {
+                    extension.setCompressionQuality(0);
+
+                    extension.writeScreenshotTo(out);
+
+                    var original = ImageIO.read(
+                        new ByteArrayInputStream(content));
+                    var written = ImageIO.read(
+                        new ByteArrayInputStream(out.toByteArray()));
+
+                    for (var x = 0; x < original.getWidth(); x++)
+                        for (var y = 0; y < original.getHeight(); y++)
+                            assertThat(written.getRGB(x, y))
+                                .isEqualTo(original.getRGB(x, y));
+                }
+
+                @Test
+                void writesJpegWhenConfigured() throws Exception
+                {
+                    extension.setImageFormat("jpg");
+                    extension.setCompressionQuality(0.5f);
+
+                    assertThat(extension.getFileExtension())
+                        .isEqualTo("jpg");
+                    assertThat(extension.writeScreenshotTo(out))
+                        .isEqualTo(new Dimension(200, 100));
+                    assertThat(out.toByteArray())
+                        .startsWith((byte)0xff, (byte)0xd8);
+                }
+
+                @Test
+                void processesScreenshotInBackgroundWhenAsynchronous()
+                    throws Exception
+                {
+                    extension.setAsynchronous(true);
+                    extension.setMaxImageWidth(100);
+                    extension.beforeExample(exampleEvent);
+
+                    assertThat(extension.writeScreenshotTo(out))
+                        .isEqualTo(new Dimension(100, 50));
+
+                    extension.afterExample(exampleEvent);
+
+                    var written = ImageIO.read(
+                        new ByteArrayInputStream(out.toByteArray()));
+
+                    assertThat(written.getWidth()).isEqualTo(100);
+                    assertThat(out.isClosed()).isTrue();
+                }
+
+                @Test
+                void cropsScreenshotToClip() throws Exception
+                {
+                    extension.setClip(new Rectangle(10, 20, 30, 40));
+
+                    assertThat(extension.writeScreenshotTo(out))
+                        .isEqualTo(new Dimension(40, 30));
+
+                    var original = ImageIO.read(
+                        new ByteArrayInputStream(content));
+                    var written = ImageIO.read(
+                        new ByteArrayInputStream(out.toByteArray()));
+
+                    assertThat(written.getWidth()).isEqualTo(40);
+                    assertThat(written.getHeight()).isEqualTo(30);
+                    assertThat(written.getRGB(0, 0))
+                        .isEqualTo(original.getRGB(10, 20));
+                }
+
+                @Test
+                void keepsWholeScreenshotWhenClipIsOutside() throws Exception
+                {
+                    extension.setClip(new Rectangle(500, 500, 10, 10));
+
+                    assertThat(extension.writeScreenshotTo(out))
+                        .isEqualTo(new Dimension(200, 100));
+                    assertThat(out.toByteArray()).isEqualTo(content);
+                }
+
+                @Test
+                void throwsExceptionWhenImageFormatIsNotSupported()
+                {
+                    assertThatThrownBy(() -> extension.setImageFormat("webp"))
+                        .isInstanceOf(IllegalArgumentException.class)
+                        .hasMessage("image format must be one of " +
+                            "[png, jpg], was: webp");
+                }
+
+                @Test
+                void throwsExceptionWhenCompressionQualityIsOutOfRange()
+                {
+                    assertThatThrownBy(() -> extension
+                            .setCompressionQuality(1.5f))
+                        .isInstanceOf(IllegalArgumentException.class)
+                        .hasMessage("compression quality must be between " +
+                            "0 and 1, was: 1.5");
+                }
+
+                private byte[] image(int width, int height)
+                {
+                    var image = new BufferedImage(width, height,
+                        BufferedImage.TYPE_INT_RGB);
+
+                    for (var x = 0; x < width; x++)
+                        for (var y = 0; y < height; y++)
+                            image.setRGB(x, y, x * 0x010203 + y * 0x030201);
+
+                    var bytes = new ByteArrayOutputStream();
+
+                    try {
+                        ImageIO.write(image, "png", bytes);
+                    } catch (IOException ex) {
+                        throw new UncheckedIOException(ex);
+                    }
+
+                    return bytes.toByteArray();
+                }
+            }
+
             private byte[] data()
             {
                 return Base64.getDecoder().decode(
@@ -658,4 +1202,7 @@ private CommandCall call()
 
     private interface ScreenshotWebDriver extends WebDriver, TakesScreenshot {
     }
+
+    private interface CdpWebDriver extends ScreenshotWebDriver, HasCdp {
+    }
 }
@@ -35,4 +35,27 @@
 @Documented
 @Testable
 public @interface ConcordionFixture {
+    /**
+     * Whether the examples of the specification are independent of each
+     * other and can be executed concurrently, when parallel execution
+     * is enabled. Each example still gets its own fixture object, unless
+     * the fixture is {@linkplain #stateless() stateless}, so the fixture
+     * must not share mutable state between the examples through static
+     * fields or the injected beans then.
+     *
+     * @return {@code true} if the examples can be executed concurrently,
+     * {@code false} otherwise
+     */
+    boolean independentExamples() default false;
+
+    /**
+     * Whether the fixture is stateless, i.e. it only delegates to the
+     * injected dependencies and keeps no state between the calls. A
+     * single injected instance of such fixture is shared by all
+     * examples and threads, so the dependencies are injected only once.
+     *
+     * @return {@code true} if the fixture instance can be shared,
+     * {@code false} otherwise
+     */
+    boolean stateless() default false;
 }
@@ -0,0 +1,143 @@
+/*
+ * Copyright 2025 Alexei Yashkov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.granito.concordion.spring;
+
+import static org.junit.platform.commons.support.AnnotationSupport.isAnnotated;
+import static org.junit.platform.commons.support.ReflectionSupport.streamAllClassesInClasspathRoot;
+
+import java.io.File;
+import java.lang.reflect.Modifier;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.springframework.core.annotation.MergedAnnotation;
+import org.springframework.core.annotation.MergedAnnotations;
+import org.springframework.core.annotation.MergedAnnotations.SearchStrategy;
+import org.springframework.test.context.aot.TestAotProcessor;
+import org.springframework.util.ClassUtils;
+
+/**
+ * A {@link TestAotProcessor} that processes Concordion fixtures ahead of
+ * time along with the JUnit Jupiter test classes using the Spring
+ * extension. Spring only looks for the latter, so without this
+ * processor the fixtures get no generated application context
+ * initializers. With the initializers generated,
+ * {@link SpringConcordionTestEngine} uses them when running with
+ * {@code -Dspring.aot.enabled=true}, like for any other test class.
+ */
+public class ConcordionTestAotProcessor extends TestAotProcessor {
+    private static final String EXTEND_WITH =
+        "org.junit.jupiter.api.extension.ExtendWith";
+
+    private static final String SPRING_EXTENSION =
+        "org.springframework.test.context.junit.jupiter.SpringExtension";
+
+    /**
+     * Creates a new {@link ConcordionTestAotProcessor}.
+     *
+     * @param classpathRoots the classpath roots to scan for test classes
+     * and Concordion fixtures
+     * @param settings the AOT processing settings
+     */
+    public ConcordionTestAotProcessor(Set<Path> classpathRoots,
+        Settings settings)
+    {
+        super(classpathRoots, settings);
+    }
+
+    /**
+     * Runs the processor. The arguments are the same as for the Spring
+     * Boot test AOT processor: the classpath roots separated with the
+     * path separator, the source, resource and class output directories,
+     * the group ID and the artifact ID.
+     *
+     * @param args the command line arguments
+     */
+    public static void main(String[] args)
+    {
+        if (args.length != 6)
+            throw new IllegalArgumentException("usage: " +
+                ConcordionTestAotProcessor.class.getName() +
+                " <classpathRoots> <sourceOutput> <resourceOutput>" +
+                " <classOutput> <groupId> <artifactId>");
+
+        var classpathRoots = Arrays.stream(args[0].split(File.pathSeparator))
+            .filter(root -> !root.isEmpty())
+            .map(Path::of)
+            .collect(Collectors.toCollection(LinkedHashSet::new));
+        var settings = Settings.builder()
+            .sourceOutput(Path.of(args[1]))
+            .resourceOutput(Path.of(args[2]))
+            .classOutput(Path.of(args[3]))
+            .groupId(args[4])
+            .artifactId(args[5])
+            .build();
+
+        new ConcordionTestAotProcessor(classpathRoots, settings).process();
+    }
+
+    /**
+     * Processes the test classes and the Concordion fixtures found in
+     * the classpath roots.
+     */
+    @Override
+    protected void performAotProcessing()
+    {
+        performAotProcessing(testClasses(getClasspathRoots()));
+    }
+
+    /**
+     * Finds the classes to process in the classpath roots: the concrete
+     * Concordion fixtures and the concrete JUnit Jupiter test classes
+     * extended with the Spring extension, including their nested test
+     * classes.
+     *
+     * @param roots the classpath roots
+     * @return the test classes
+     */
+    static Stream<Class<?>> testClasses(Set<Path> roots)
+    {
+        return roots.stream()
+            .flatMap(root -> streamAllClassesInClasspathRoot(root.toUri(),
+                ConcordionTestAotProcessor::isTestClass, name -> true))
+            .distinct();
+    }
+
+    private static boolean isTestClass(Class<?> clazz)
+    {
+        if (clazz.isInterface() || Modifier.isAbstract(clazz.getModifiers()))
+            return false;
+
+        return isAnnotated(clazz, ConcordionFixture.class) ||
+            MergedAnnotations.search(SearchStrategy.TYPE_HIERARCHY)
+                .withEnclosingClasses(ClassUtils::isInnerClass)
+                .from(clazz)
+                .stream(EXTEND_WITH)
+                .flatMap(ConcordionTestAotProcessor::extensions)
+                .anyMatch(SPRING_EXTENSION::equals);
+    }
+
+    private static Stream<String> extensions(MergedAnnotation<?> extendWith)
+    {
+        return Arrays.stream(extendWith.getClassArray("value"))
+            .map(Class::getName);
+    }
+}
@@ -18,6 +18,9 @@
 
 import static org.junit.platform.commons.support.AnnotationSupport.findAnnotation;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 import org.concordion.integration.junit.platform.engine.BaseConcordionTestEngine;
 import org.concordion.internal.runner.SpringConcordionRunner;
 import org.junit.platform.commons.support.ReflectionSupport;
@@ -33,6 +36,12 @@ public class SpringConcordionTestEngine extends BaseConcordionTestEngine {
     /** The test engine's ID */
     public static final String ENGINE_ID = "concordion-spring";
 
+    private final Map<Class<?>, TestContextManager> testManagers =
+        new ConcurrentHashMap<>();
+
+    private final Map<Class<?>, Object> statelessFixtures =
+        new ConcurrentHashMap<>();
+
     /**
      * Creates a new instance of {@link SpringConcordionTestEngine}.
      * Also, it configures the Concordion to use
@@ -72,7 +81,11 @@ protected boolean annotatedAsFixture(Class<?> clazz)
 
     /**
      * Creates a fixture object and injects Spring dependencies into it
-     * using {@link TestContextManager}.
+     * using {@link TestContextManager}. The manager is created once per
+     * fixture class, so the test context bootstrapping is not repeated
+     * for every example. For
+     * {@linkplain ConcordionFixture#stateless() stateless} fixtures,
+     * the object is created once and then reused.
      *
      * @param clazz the fixture class
      * @return the created fixture object
@@ -80,7 +93,46 @@ protected boolean annotatedAsFixture(Class<?> clazz)
     @Override
     protected Object createFixtureObject(Class<?> clazz)
     {
-        var testManager = new TestContextManager(clazz);
+        var stateless = findAnnotation(clazz, ConcordionFixture.class)
+            .map(ConcordionFixture::stateless)
+            .orElse(false);
+
+        return stateless ?
+            statelessFixtures.computeIfAbsent(clazz, this::newFixtureObject) :
+            newFixtureObject(clazz);
+    }
+
+    /**
+     * Checks if the examples of the given fixture class are declared
+     * {@linkplain ConcordionFixture#independentExamples() independent}.
+     *
+     * @param clazz the fixture class
+     * @return {@code true} if the examples can be executed concurrently,
+     * {@code false} otherwise
+     */
+    @Override
+    protected boolean examplesIndependent(Class<?> clazz)
+    {
+        return findAnnotation(clazz, ConcordionFixture.class)
+            .map(ConcordionFixture::independentExamples)
+            .orElse(false);
+    }
+
+    /**
+     * Returns the {@link TestContextManager} for the fixture class,
+     * creating it on the first call.
+     *
+     * @param clazz the fixture class
+     * @return the test context manager
+     */
+    TestContextManager testContextManager(Class<?> clazz)
+    {
+        return testManagers.computeIfAbsent(clazz, TestContextManager::new);
+    }
+
+    private Object newFixtureObject(Class<?> clazz)
+    {
+        var testManager = testContextManager(clazz);
         var object = ReflectionSupport.newInstance(clazz);
 
         try {
@@ -0,0 +1,140 @@
+/*
+ * Copyright 2025 Alexei Yashkov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.granito.concordion.spring;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import javax.tools.ToolProvider;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.context.ApplicationContextInitializer;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.support.GenericApplicationContext;
+import org.springframework.test.context.aot.AbstractAotProcessor.Settings;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+import spec.spring.DemoFixture;
+import spec.spring.PartialMatchesFixture;
+import spec.spring.SpikeFixture;
+
+class ConcordionTestAotProcessorTest {
+    private static final String GENERATED_INITIALIZERS =
+        "org.springframework.test.context.aot." +
+            "AotTestContextInitializers__Generated";
+
+    @Test
+    void findsConcordionFixturesAndSpringTestClasses() throws Exception
+    {
+        assertThat(ConcordionTestAotProcessor.testClasses(Set.of(root())))
+            .contains(
+                DemoFixture.class,
+                PartialMatchesFixture.class,
+                SpikeFixture.class,
+                SpringTest.class
+            )
+            .doesNotContain(
+                ConcordionTestAotProcessorTest.class,
+                SpikeFixture.Person.class
+            );
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void generatesContextInitializersLoadedAheadOfTime(@TempDir Path dir)
+        throws Exception
+    {
+        var roots = dir.resolve("roots");
+        var fixture = DemoFixture.class.getName().replace('.', '/') +
+            ".class";
+
+        Files.createDirectories(roots.resolve(fixture).getParent());
+        Files.copy(root().resolve(fixture), roots.resolve(fixture));
+
+        var sources = dir.resolve("sources");
+        var classes = dir.resolve("classes");
+
+        new ConcordionTestAotProcessor(Set.of(roots), Settings.builder()
+            .sourceOutput(sources)
+            .resourceOutput(dir.resolve("resources"))
+            .classOutput(classes)
+            .groupId("io.granito.concordion")
+            .artifactId("concordion-spring-test")
+            .build()).process();
+
+        List<String> generated;
+
+        try (var files = Files.walk(sources)) {
+            generated = files
+                .filter(file -> file.toString().endsWith(".java"))
+                .map(Path::toString)
+                .toList();
+        }
+
+        assertThat(generated)
+            .anyMatch(file -> file.contains("DemoFixture__TestContext"));
+
+        var javac = ToolProvider.getSystemJavaCompiler();
+        var arguments = Stream.concat(
+            Stream.of("-d", classes.toString(), "-classpath",
+                System.getProperty("java.class.path")),
+            generated.stream());
+
+        assertThat(javac.run(null, null, null,
+            arguments.toArray(String[]::new))).isZero();
+
+        try (var loader = new URLClassLoader(
+            new URL[] {classes.toUri().toURL()}, getClass().getClassLoader());
+            var context = new GenericApplicationContext()) {
+            var initializers = (Map<String, Supplier<
+                ApplicationContextInitializer<ConfigurableApplicationContext>>>)
+                loader.loadClass(GENERATED_INITIALIZERS)
+                    .getMethod("getContextInitializers")
+                    .invoke(null);
+
+            initializers.get(DemoFixture.class.getName()).get()
+                .initialize(context);
+            context.refresh();
+
+            assertThat(context.getBean(DemoFixture.class)
+                .greetingFor("Bob")).isEqualTo("Hello Bob!");
+        }
+    }
+
+    private static Path root() throws Exception
+    {
+        return Path.of(DemoFixture.class.getProtectionDomain()
+            .getCodeSource().getLocation().toURI());
+    }
+
+    @SpringJUnitConfig(DemoFixture.class)
+    static class SpringTest {
+        @Test
+        void loads()
+        {
+        }
+    }
+}
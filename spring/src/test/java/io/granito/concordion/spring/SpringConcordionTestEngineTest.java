@@ -17,11 +17,32 @@
 package io.granito.concordion.spring;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.platform.testkit.engine.EventConditions.event;
+import static org.junit.platform.testkit.engine.EventConditions.finishedSuccessfully;
+import static org.junit.platform.testkit.engine.EventConditions.finishedWithFailure;
+import static org.junit.platform.testkit.engine.EventConditions.test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
 
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.junit.platform.engine.TestDescriptor;
 import org.junit.platform.engine.discovery.DiscoverySelectors;
+import org.junit.platform.engine.support.hierarchical.ExclusiveResource;
+import org.junit.platform.engine.support.hierarchical.ExclusiveResource.LockMode;
+import org.junit.platform.engine.support.hierarchical.Node;
+import org.junit.platform.engine.support.hierarchical.Node.ExecutionMode;
 import org.junit.platform.testkit.engine.EngineTestKit;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+import spec.failing.FailingFixture;
+import spec.failing.PassingFixture;
+import spec.independent.IndependentExamplesFixture;
+import spec.locking.LockingFixture;
 import spec.spring.DemoFixture;
 import spec.spring.PartialMatchesFixture;
 import spec.spring.SpikeFixture;
@@ -95,4 +116,411 @@ void runsConcordionSpecs()
             .testEvents()
             .assertStatistics(stats -> stats.started(3).succeeded(3));
     }
+
+    @Test
+    void partitionsFixturesBetweenShards()
+    {
+        var names = new ArrayList<String>();
+
+        for (var index = 0; index < 2; index++)
+            names.addAll(displayNames(discoverShard(index, 2, null)));
+
+        assertThat(names).containsExactlyInAnyOrder(
+            "spec.spring.Demo",
+            "spec.spring.PartialMatches",
+            "spec.spring.Spike"
+        );
+    }
+
+    @Test
+    void balancesShardsByRecordedDurations(@TempDir Path dir)
+        throws Exception
+    {
+        var timings = dir.resolve("timings.properties");
+
+        Files.writeString(timings, String.join("\n",
+            DemoFixture.class.getName() + "=1000",
+            PartialMatchesFixture.class.getName() + "=10",
+            SpikeFixture.class.getName() + "=10"));
+
+        assertThat(displayNames(discoverShard(0, 2, timings)))
+            .containsExactly("spec.spring.Demo");
+        assertThat(displayNames(discoverShard(1, 2, timings)))
+            .containsExactlyInAnyOrder(
+                "spec.spring.PartialMatches",
+                "spec.spring.Spike"
+            );
+    }
+
+    @Test
+    void recordsDurationsOfExecutedFixtures(@TempDir Path dir)
+        throws Exception
+    {
+        var timings = dir.resolve("timings.properties");
+
+        engine
+            .configurationParameter("concordion.timings.file",
+                timings.toString())
+            .selectors(
+                DiscoverySelectors.selectClass(DemoFixture.class),
+                DiscoverySelectors.selectClass(SpikeFixture.class))
+            .execute();
+
+        var properties = new Properties();
+
+        try (var in = Files.newBufferedReader(timings)) {
+            properties.load(in);
+        }
+
+        assertThat(properties.stringPropertyNames())
+            .filteredOn(key -> !key.contains("#"))
+            .containsExactlyInAnyOrder(
+                DemoFixture.class.getName(),
+                SpikeFixture.class.getName()
+            );
+        assertThat(properties.stringPropertyNames())
+            .filteredOn(key -> key.contains("#"))
+            .hasSize(2)
+            .anyMatch(key -> key.startsWith(DemoFixture.class.getName()))
+            .anyMatch(key -> key.startsWith(SpikeFixture.class.getName()));
+    }
+
+    @Test
+    void ignoresFailureToStoreDurationsAndChanges(@TempDir Path dir)
+        throws Exception
+    {
+        var blocked = Files.createFile(dir.resolve("blocked"));
+
+        var executionResults = engine
+            .configurationParameter("concordion.timings.file",
+                blocked.resolve("timings.properties").toString())
+            .configurationParameter("concordion.changes.file",
+                blocked.resolve("changes.properties").toString())
+            .selectors(DiscoverySelectors.selectClass(DemoFixture.class))
+            .execute();
+
+        executionResults
+            .containerEvents()
+            .assertStatistics(stats -> stats.started(2).succeeded(2));
+        executionResults
+            .testEvents()
+            .assertStatistics(stats -> stats.started(1).succeeded(1));
+    }
+
+    @Test
+    void ordersFixturesByRecordedDurations(@TempDir Path dir)
+        throws Exception
+    {
+        var timings = dir.resolve("timings.properties");
+
+        Files.writeString(timings, String.join("\n",
+            DemoFixture.class.getName() + "=10",
+            PartialMatchesFixture.class.getName() + "=100",
+            SpikeFixture.class.getName() + "=1000"));
+
+        assertThat(displayNames(discoverShard(0, 1, timings)))
+            .containsExactly(
+                "spec.spring.Spike",
+                "spec.spring.PartialMatches",
+                "spec.spring.Demo"
+            );
+    }
+
+    @Test
+    void runsOnlyChangedFixtures(@TempDir Path dir)
+    {
+        var changes = dir.resolve("changes.properties").toString();
+
+        EngineTestKit.engine("concordion-spring")
+            .configurationParameter("concordion.changes.file", changes)
+            .selectors(DiscoverySelectors.selectClass(DemoFixture.class))
+            .execute()
+            .testEvents()
+            .assertStatistics(stats -> stats.started(1).succeeded(1));
+
+        var descriptor = EngineTestKit.engine("concordion-spring")
+            .configurationParameter("concordion.changes.file", changes)
+            .selectors(DiscoverySelectors
+                .selectPackage(DemoFixture.class.getPackageName()))
+            .discover()
+            .getEngineDescriptor();
+
+        assertThat(displayNames(descriptor)).containsExactlyInAnyOrder(
+            "spec.spring.PartialMatches",
+            "spec.spring.Spike"
+        );
+    }
+
+    @Test
+    void skipsRemainingFixturesWhenFailFastThresholdIsReached(
+        @TempDir Path dir) throws Exception
+    {
+        var timings = dir.resolve("timings.properties");
+        var changes = dir.resolve("changes.properties");
+
+        Files.writeString(timings, String.join("\n",
+            FailingFixture.class.getName() + "=100",
+            PassingFixture.class.getName() + "=10"));
+
+        var executionResults = EngineTestKit.engine("concordion-spring")
+            .configurationParameter("concordion.failfast.threshold", "1")
+            .configurationParameter("concordion.timings.file",
+                timings.toString())
+            .configurationParameter("concordion.changes.file",
+                changes.toString())
+            .selectors(DiscoverySelectors
+                .selectPackage(FailingFixture.class.getPackageName()))
+            .execute();
+
+        executionResults
+            .testEvents()
+            .assertStatistics(stats -> stats
+                .started(1).failed(1).skipped(1));
+        executionResults
+            .containerEvents()
+            .assertStatistics(stats -> stats.started(2).skipped(1));
+
+        var properties = new Properties();
+
+        try (var in = Files.newBufferedReader(changes)) {
+            properties.load(in);
+        }
+
+        assertThat(properties).isEmpty();
+
+        var descriptor = EngineTestKit.engine("concordion-spring")
+            .configurationParameter("concordion.changes.file",
+                changes.toString())
+            .selectors(DiscoverySelectors
+                .selectPackage(FailingFixture.class.getPackageName()))
+            .discover()
+            .getEngineDescriptor();
+
+        assertThat(displayNames(descriptor)).containsExactlyInAnyOrder(
+            "spec.failing.Failing",
+            "spec.failing.Passing"
+        );
+    }
+
+    @Test
+    void runsConcordionSpecsInParallel()
+    {
+        var executionResults = engine
+            .configurationParameter("concordion.execution.parallel.enabled",
+                "true")
+            .selectors(DiscoverySelectors
+                .selectPackage(DemoFixture.class.getPackageName()))
+            .execute();
+
+        executionResults
+            .testEvents()
+            .assertStatistics(stats -> stats.started(3).succeeded(3));
+    }
+
+    @Test
+    void runsIndependentExamplesInParallelInForkJoinPool() throws Exception
+    {
+        runIndependentExamples(engine
+            .configurationParameter("concordion.execution.parallel.executor",
+                "fork-join")
+            .configurationParameter(
+                "concordion.execution.parallel.config.strategy", "fixed")
+            .configurationParameter(
+                "concordion.execution.parallel.config.fixed.parallelism",
+                "8"));
+    }
+
+    @Test
+    void runsIndependentExamplesInParallelInVirtualThreads()
+        throws Exception
+    {
+        runIndependentExamples(engine
+            .configurationParameter("concordion.execution.parallel.executor",
+                "virtual"));
+    }
+
+    @Test
+    void locksDeclaredResources()
+    {
+        var spec = engine
+            .selectors(DiscoverySelectors.selectClass(LockingFixture.class))
+            .discover()
+            .getEngineDescriptor()
+            .getChildren().iterator().next();
+
+        assertThat(((Node<?>)spec).getExclusiveResources())
+            .containsExactlyInAnyOrder(
+                new ExclusiveResource("people", LockMode.READ_WRITE),
+                new ExclusiveResource("greetings", LockMode.READ)
+            );
+    }
+
+    @Test
+    void runsConcordionSpecsInVirtualThreads()
+    {
+        var executionResults = engine
+            .configurationParameter("concordion.execution.parallel.enabled",
+                "true")
+            .configurationParameter("concordion.execution.parallel.executor",
+                "virtual")
+            .configurationParameter(
+                "concordion.execution.parallel.max-concurrency", "2")
+            .selectors(DiscoverySelectors
+                .selectPackage(DemoFixture.class.getPackageName()))
+            .execute();
+
+        executionResults
+            .testEvents()
+            .assertStatistics(stats -> stats.started(3).succeeded(3));
+    }
+
+    @Test
+    void runsExamplesSequentiallyByDefault()
+    {
+        var example = engine
+            .selectors(DiscoverySelectors.selectClass(DemoFixture.class))
+            .discover()
+            .getEngineDescriptor()
+            .getChildren().iterator().next()
+            .getChildren().iterator().next();
+
+        assertThat(((Node<?>)example).getExecutionMode())
+            .isEqualTo(ExecutionMode.SAME_THREAD);
+    }
+
+    @Test
+    void recognizesIndependentExamples()
+    {
+        var testEngine = new SpringConcordionTestEngine();
+
+        assertThat(testEngine.examplesIndependent(DemoFixture.class))
+            .isFalse();
+        assertThat(testEngine.examplesIndependent(IndependentFixture.class))
+            .isTrue();
+    }
+
+    @Test
+    void createsFixtureObjectForEachCall()
+    {
+        var testEngine = new SpringConcordionTestEngine();
+
+        assertThat(testEngine.createFixtureObject(DemoFixture.class))
+            .isNotSameAs(testEngine.createFixtureObject(DemoFixture.class));
+    }
+
+    @Test
+    void reusesTestContextManagerForFixtureClass()
+    {
+        var testEngine = new SpringConcordionTestEngine();
+        var testManager = testEngine.testContextManager(DemoFixture.class);
+
+        testEngine.createFixtureObject(DemoFixture.class);
+
+        assertThat(testEngine.testContextManager(DemoFixture.class))
+            .isSameAs(testManager);
+        assertThat(testEngine.testContextManager(SpikeFixture.class))
+            .isNotSameAs(testManager);
+    }
+
+    @Test
+    void reusesStatelessFixtureObject()
+    {
+        var testEngine = new SpringConcordionTestEngine();
+        var fixture = testEngine.createFixtureObject(StatelessFixture.class);
+
+        assertThat(fixture).isInstanceOf(StatelessFixture.class);
+        assertThat(((StatelessFixture)fixture).fixture).isNotNull();
+        assertThat(testEngine.createFixtureObject(StatelessFixture.class))
+            .isSameAs(fixture);
+    }
+
+    private TestDescriptor discoverShard(int index, int count, Path timings)
+    {
+        var shard = EngineTestKit.engine("concordion-spring");
+
+        if (timings != null)
+            shard.configurationParameter("concordion.timings.file",
+                timings.toString());
+
+        return shard
+            .configurationParameter("concordion.shard.index",
+                String.valueOf(index))
+            .configurationParameter("concordion.shard.count",
+                String.valueOf(count))
+            .selectors(DiscoverySelectors
+                .selectPackage(DemoFixture.class.getPackageName()))
+            .discover()
+            .getEngineDescriptor();
+    }
+
+    private void runIndependentExamples(EngineTestKit.Builder builder)
+        throws Exception
+    {
+        IndependentExamplesFixture.reset();
+
+        var events = builder
+            .configurationParameter("concordion.execution.parallel.enabled",
+                "true")
+            .selectors(DiscoverySelectors
+                .selectClass(IndependentExamplesFixture.class))
+            .execute()
+            .testEvents();
+
+        events.assertStatistics(stats -> stats
+            .started(IndependentExamplesFixture.EXAMPLES)
+            .succeeded(IndependentExamplesFixture.EXAMPLES - 1)
+            .failed(1));
+        events.succeeded().assertThatEvents()
+            .haveExactly(1, event(test("first"), finishedSuccessfully()))
+            .haveExactly(1, event(test("third"), finishedSuccessfully()))
+            .haveExactly(1, event(test("fourth"), finishedSuccessfully()));
+        events.failed().assertThatEvents()
+            .haveExactly(1, event(test("second"), finishedWithFailure()));
+
+        assertThat(IndependentExamplesFixture.instances())
+            .isEqualTo(IndependentExamplesFixture.EXAMPLES);
+
+        var output = Files.readString(Path.of(System.getProperty(
+                "concordion.output.dir", Path.of(System.getProperty(
+                    "java.io.tmpdir"), "concordion").toString()))
+            .resolve("spec/independent/IndependentExamples.html"));
+        var first = output.indexOf("id=\"first\"");
+        var second = output.indexOf("id=\"second\"");
+        var third = output.indexOf("id=\"third\"");
+        var fourth = output.indexOf("id=\"fourth\"");
+
+        assertThat(first).isNotNegative().isLessThan(second);
+        assertThat(second).isLessThan(third);
+        assertThat(third).isLessThan(fourth);
+        assertThat(output.substring(first, second))
+            .contains("Hello David!", "class=\"success\"")
+            .doesNotContain("class=\"failure\"");
+        assertThat(output.substring(second, third))
+            .contains("Goodbye Bob!", "class=\"failure\"")
+            .doesNotContain("class=\"success\"");
+        assertThat(output.substring(third, fourth))
+            .contains("Hello Carol!", "class=\"success\"")
+            .doesNotContain("class=\"failure\"");
+        assertThat(output.substring(fourth))
+            .contains("Hello Dave!", "class=\"success\"")
+            .doesNotContain("class=\"failure\"");
+    }
+
+    private List<String> displayNames(TestDescriptor descriptor)
+    {
+        return descriptor.getChildren().stream()
+            .map(TestDescriptor::getDisplayName)
+            .toList();
+    }
+
+    @ConcordionFixture(independentExamples = true)
+    static class IndependentFixture {
+    }
+
+    @ConcordionFixture(stateless = true)
+    @ContextConfiguration(classes = DemoFixture.class)
+    static class StatelessFixture {
+        @Autowired
+        DemoFixture fixture;
+    }
 }
@@ -0,0 +1,13 @@
+package spec.failing;
+
+import io.granito.concordion.spring.ConcordionFixture;
+import org.springframework.test.context.ContextConfiguration;
+
+@ConcordionFixture
+@ContextConfiguration(classes = FailingFixture.class)
+public class FailingFixture {
+    public String getGreetingFor(String name)
+    {
+        return "Hello " + name + "!";
+    }
+}
@@ -0,0 +1,39 @@
+package spec.independent;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+
+import io.granito.concordion.spring.ConcordionFixture;
+import org.springframework.test.context.ContextConfiguration;
+
+@ConcordionFixture(independentExamples = true)
+@ContextConfiguration(classes = IndependentExamplesFixture.class)
+public class IndependentExamplesFixture {
+    public static final int EXAMPLES = 4;
+
+    private static final Set<Object> INSTANCES =
+        ConcurrentHashMap.newKeySet();
+
+    private static final CyclicBarrier BARRIER = new CyclicBarrier(EXAMPLES);
+
+    public static void reset()
+    {
+        INSTANCES.clear();
+        BARRIER.reset();
+    }
+
+    public static int instances()
+    {
+        return INSTANCES.size();
+    }
+
+    public String getGreetingFor(String name) throws Exception
+    {
+        INSTANCES.add(this);
+        BARRIER.await(10, TimeUnit.SECONDS);
+
+        return "Hello " + name + "!";
+    }
+}
@@ -0,0 +1,17 @@
+package spec.locking;
+
+import io.granito.concordion.spring.ConcordionFixture;
+import org.concordion.integration.junit.platform.engine.ConcordionResourceLock;
+import org.junit.platform.engine.support.hierarchical.ExclusiveResource.LockMode;
+import org.springframework.test.context.ContextConfiguration;
+
+@ConcordionFixture
+@ConcordionResourceLock("people")
+@ConcordionResourceLock(value = "greetings", mode = LockMode.READ)
+@ContextConfiguration(classes = LockingFixture.class)
+public class LockingFixture {
+    public String getGreetingFor(String name)
+    {
+        return "Hello " + name + "!";
+    }
+}
@@ -0,0 +1,218 @@
+/*
+ * Copyright 2025 Alexei Yashkov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.granito.concordion.test;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An {@link OutputStream} decorator that counts the written bytes,
+ * the write and flush calls, and optionally throttles the writes to
+ * simulate a slow storage. It is thread-safe, so it can be shared by
+ * concurrent writers.
+ */
+public class CountingOutputStream extends FilterOutputStream {
+    private final AtomicLong bytes = new AtomicLong();
+
+    private final AtomicLong writes = new AtomicLong();
+
+    private final AtomicLong flushes = new AtomicLong();
+
+    private final AtomicLong maxWriteSize = new AtomicLong();
+
+    private final AtomicLong throttledNanos = new AtomicLong();
+
+    private volatile long bytesPerSecond = 0;
+
+    private volatile boolean closed = false;
+
+    /**
+     * Creates a new {@link CountingOutputStream} discarding the written
+     * data.
+     */
+    public CountingOutputStream()
+    {
+        this(OutputStream.nullOutputStream());
+    }
+
+    /**
+     * Creates a new {@link CountingOutputStream} writing to the given
+     * output stream.
+     *
+     * @param out the output stream to write to
+     */
+    public CountingOutputStream(OutputStream out)
+    {
+        super(out);
+    }
+
+    /**
+     * Limits the write throughput of this output stream. Each write
+     * sleeps for the time it would take to write the data at the given
+     * rate.
+     *
+     * @param bytesPerSecond the maximum number of bytes written per
+     * second, or {@code 0} for no limit
+     */
+    public void setBytesPerSecond(long bytesPerSecond)
+    {
+        this.bytesPerSecond = Math.max(0, bytesPerSecond);
+    }
+
+    /**
+     * Counts and writes the provided {@code byte}.
+     *
+     * @param b the {@code byte} to write
+     * @throws IOException when an I/O error occurs
+     */
+    @Override
+    public void write(int b) throws IOException
+    {
+        count(1);
+        out.write(b);
+    }
+
+    /**
+     * Counts and writes the provided byte array in a single write call.
+     *
+     * @param buf the data to write
+     * @param off the start offset in the data
+     * @param len the number of bytes to write
+     * @throws IOException when an I/O error occurs
+     */
+    @Override
+    public void write(byte[] buf, int off, int len) throws IOException
+    {
+        count(len);
+        out.write(buf, off, len);
+    }
+
+    /**
+     * Counts and flushes this output stream.
+     *
+     * @throws IOException when an I/O error occurs
+     */
+    @Override
+    public void flush() throws IOException
+    {
+        flushes.incrementAndGet();
+        out.flush();
+    }
+
+    /**
+     * Closes this output stream.
+     *
+     * @throws IOException when an I/O error occurs
+     */
+    @Override
+    public void close() throws IOException
+    {
+        closed = true;
+        super.close();
+    }
+
+    /**
+     * Returns the number of bytes written.
+     *
+     * @return the number of bytes
+     */
+    public long getByteCount()
+    {
+        return bytes.get();
+    }
+
+    /**
+     * Returns the number of write calls.
+     *
+     * @return the number of write calls
+     */
+    public long getWriteCount()
+    {
+        return writes.get();
+    }
+
+    /**
+     * Returns the number of flush calls, including the ones made by
+     * {@link #close()}.
+     *
+     * @return the number of flush calls
+     */
+    public long getFlushCount()
+    {
+        return flushes.get();
+    }
+
+    /**
+     * Returns the largest number of bytes written by a single write call.
+     *
+     * @return the largest write size
+     */
+    public long getMaxWriteSize()
+    {
+        return maxWriteSize.get();
+    }
+
+    /**
+     * Returns the total time the writes were delayed by throttling.
+     *
+     * @return the throttling time in nanoseconds
+     */
+    public long getThrottledNanos()
+    {
+        return throttledNanos.get();
+    }
+
+    /**
+     * Indicates whether this output stream has been closed.
+     *
+     * @return {@code true} if this output stream is closed,
+     * {@code false} otherwise
+     */
+    public boolean isClosed()
+    {
+        return closed;
+    }
+
+    private void count(int len) throws IOException
+    {
+        bytes.addAndGet(len);
+        writes.incrementAndGet();
+        maxWriteSize.accumulateAndGet(len, Math::max);
+
+        var rate = bytesPerSecond;
+
+        if (rate > 0)
+            throttle(TimeUnit.SECONDS.toNanos(len) / rate);
+    }
+
+    private void throttle(long nanos) throws IOException
+    {
+        try {
+            TimeUnit.NANOSECONDS.sleep(nanos);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+
+            throw new InterruptedIOException("throttling interrupted");
+        }
+
+        throttledNanos.addAndGet(nanos);
+    }
+}
@@ -0,0 +1,292 @@
+/*
+ * Copyright 2025 Alexei Yashkov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.granito.concordion.test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.concordion.api.Resource;
+import org.concordion.api.Target;
+
+/**
+ * An in-memory {@link Target} test double that records the content
+ * written to each resource along with the sizes of the individual write
+ * calls, the time each output stream was open and the number of calls.
+ * It never touches the disk and is thread-safe, so the throughput of
+ * extensions can be measured and asserted deterministically.
+ */
+public class TestTarget implements Target {
+    private final Map<Resource, Entry> entries = new ConcurrentHashMap<>();
+
+    private final AtomicInteger outputStreamCount = new AtomicInteger();
+
+    private volatile long bytesPerSecond = 0;
+
+    /**
+     * Limits the write throughput of the output streams returned by
+     * this target to simulate a slow storage.
+     *
+     * @param bytesPerSecond the maximum number of bytes written per
+     * second by each output stream, or {@code 0} for no limit
+     * @see CountingOutputStream#setBytesPerSecond(long)
+     */
+    public void setBytesPerSecond(long bytesPerSecond)
+    {
+        this.bytesPerSecond = bytesPerSecond;
+    }
+
+    /**
+     * Writes the string to the resource using UTF-8 encoding.
+     *
+     * @param resource the resource to write
+     * @param s the string to write
+     * @throws IOException when an I/O error occurs
+     */
+    @Override
+    public void write(Resource resource, String s) throws IOException
+    {
+        try (var out = getOutputStream(resource)) {
+            out.write(s.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * Copies the input stream to the resource.
+     *
+     * @param resource the resource to write
+     * @param inputStream the input stream to copy
+     * @throws IOException when an I/O error occurs
+     */
+    @Override
+    public void copyTo(Resource resource, InputStream inputStream)
+        throws IOException
+    {
+        try (var out = getOutputStream(resource)) {
+            inputStream.transferTo(out);
+        }
+    }
+
+    /**
+     * Deletes the resource content and its statistics.
+     *
+     * @param resource the resource to delete
+     */
+    @Override
+    public void delete(Resource resource)
+    {
+        entries.remove(resource);
+    }
+
+    /**
+     * Indicates whether the resource has been written.
+     *
+     * @param resource the resource to check
+     * @return {@code true} if an output stream has been opened for the
+     * resource, {@code false} otherwise
+     */
+    @Override
+    public boolean exists(Resource resource)
+    {
+        return entries.containsKey(resource);
+    }
+
+    /**
+     * Returns a new output stream capturing the resource content,
+     * replacing any previous content.
+     *
+     * @param resource the resource to write
+     * @return the output stream
+     */
+    @Override
+    public OutputStream getOutputStream(Resource resource)
+    {
+        outputStreamCount.incrementAndGet();
+
+        var entry = new Entry();
+
+        entry.out.setBytesPerSecond(bytesPerSecond);
+        entries.put(resource, entry);
+
+        return entry.out;
+    }
+
+    /**
+     * Returns the resource path.
+     *
+     * @param resource the resource
+     * @return the resource path
+     */
+    @Override
+    public String resolvedPathFor(Resource resource)
+    {
+        return resource.getPath();
+    }
+
+    /**
+     * Returns {@code null}, as the resources are not backed by files.
+     *
+     * @param resource the resource
+     * @return {@code null}
+     */
+    @Override
+    public File getFile(Resource resource)
+    {
+        return null;
+    }
+
+    /**
+     * Returns the written resources.
+     *
+     * @return the written resources
+     */
+    public List<Resource> getResources()
+    {
+        return List.copyOf(entries.keySet());
+    }
+
+    /**
+     * Returns the content written to the resource.
+     *
+     * @param resource the resource
+     * @return the content or {@code null} if the resource has not been
+     * written
+     */
+    public byte[] getContent(Resource resource)
+    {
+        var entry = entries.get(resource);
+
+        return entry == null ? null : entry.content.toByteArray();
+    }
+
+    /**
+     * Returns the sizes of the individual write calls to the resource.
+     *
+     * @param resource the resource
+     * @return the write sizes, empty if the resource has not been written
+     */
+    public List<Integer> getWriteSizes(Resource resource)
+    {
+        var entry = entries.get(resource);
+
+        if (entry == null)
+            return List.of();
+
+        synchronized (entry.sizes) {
+            return List.copyOf(entry.sizes);
+        }
+    }
+
+    /**
+     * Returns the time the output stream of the resource was open,
+     * i.e. the time from {@link #getOutputStream(Resource)} to closing
+     * the stream.
+     *
+     * @param resource the resource
+     * @return the time or {@code null} if the stream has not been closed
+     */
+    public Duration getWriteLatency(Resource resource)
+    {
+        var entry = entries.get(resource);
+
+        return entry == null || entry.closedAt == 0 ? null :
+            Duration.ofNanos(entry.closedAt - entry.openedAt);
+    }
+
+    /**
+     * Indicates whether the output stream of the resource has been closed.
+     *
+     * @param resource the resource
+     * @return {@code true} if the stream has been closed, {@code false}
+     * otherwise
+     */
+    public boolean isClosed(Resource resource)
+    {
+        var entry = entries.get(resource);
+
+        return entry != null && entry.out.isClosed();
+    }
+
+    /**
+     * Returns the number of output streams requested from this target.
+     *
+     * @return the number of {@link #getOutputStream(Resource)} calls
+     */
+    public int getOutputStreamCount()
+    {
+        return outputStreamCount.get();
+    }
+
+    /**
+     * Returns the total number of bytes written to all resources.
+     *
+     * @return the number of bytes
+     */
+    public long getByteCount()
+    {
+        return entries.values().stream()
+            .mapToLong(entry -> entry.out.getByteCount())
+            .sum();
+    }
+
+    private static class Entry {
+        private final ByteArrayOutputStream content =
+            new ByteArrayOutputStream();
+
+        private final List<Integer> sizes =
+            Collections.synchronizedList(new ArrayList<>());
+
+        private final long openedAt = System.nanoTime();
+
+        private volatile long closedAt;
+
+        private final CountingOutputStream out =
+            new CountingOutputStream(content) {
+                @Override
+                public void write(int b) throws IOException
+                {
+                    sizes.add(1);
+                    super.write(b);
+                }
+
+                @Override
+                public void write(byte[] buf, int off, int len)
+                    throws IOException
+                {
+                    sizes.add(len);
+                    super.write(buf, off, len);
+                }
+
+                @Override
+                public void close() throws IOException
+                {
+                    super.close();
+                    closedAt = System.nanoTime();
+                }
+            };
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2025 Alexei Yashkov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.granito.concordion.test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+class CountingOutputStreamTest {
+    private final ByteArrayOutputStream content = new ByteArrayOutputStream();
+
+    private final CountingOutputStream out =
+        new CountingOutputStream(content);
+
+    @Test
+    void countsWrittenBytesAndWriteCalls() throws Exception
+    {
+        out.write('a');
+        out.write(new byte[] {'b', 'c', 'd'});
+        out.write(new byte[] {'e', 'f', 'g', 'h'}, 1, 2);
+
+        assertThat(content.toString()).isEqualTo("abcdfg");
+        assertThat(out.getByteCount()).isEqualTo(6);
+        assertThat(out.getWriteCount()).isEqualTo(3);
+        assertThat(out.getMaxWriteSize()).isEqualTo(3);
+        assertThat(out.getThrottledNanos()).isZero();
+    }
+
+    @Test
+    void countsFlushesIncludingTheOneOnClose() throws Exception
+    {
+        out.flush();
+
+        assertThat(out.isClosed()).isFalse();
+
+        out.close();
+
+        assertThat(out.getFlushCount()).isEqualTo(2);
+        assertThat(out.isClosed()).isTrue();
+    }
+
+    @Test
+    void throttlesWritesToConfiguredRate() throws Exception
+    {
+        out.setBytesPerSecond(1000);
+
+        var start = System.nanoTime();
+
+        out.write(new byte[50]);
+
+        assertThat(out.getThrottledNanos())
+            .isEqualTo(TimeUnit.MILLISECONDS.toNanos(50));
+        assertThat(System.nanoTime() - start)
+            .isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(50));
+    }
+
+    @Test
+    void doesNotThrottleWithoutPositiveRate() throws Exception
+    {
+        out.setBytesPerSecond(-1);
+        out.write(new byte[50]);
+
+        assertThat(out.getThrottledNanos()).isZero();
+    }
+
+    @Test
+    void discardsDataWithoutOutputStream() throws Exception
+    {
+        try (var discarding = new CountingOutputStream()) {
+            discarding.write(new byte[10]);
+
+            assertThat(discarding.getByteCount()).isEqualTo(10);
+        }
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2025 Alexei Yashkov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.granito.concordion.test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+import org.concordion.api.Resource;
+import org.junit.jupiter.api.Test;
+
+class TestTargetTest {
+    private final TestTarget target = new TestTarget();
+
+    private final Resource resource = new Resource("/spec/file.out");
+
+    @Test
+    void recordsContentAndStatisticsOfOutputStream() throws Exception
+    {
+        var out = target.getOutputStream(resource);
+
+        out.write(new byte[] {'a', 'b', 'c'});
+        out.write('d');
+
+        assertThat(target.isClosed(resource)).isFalse();
+        assertThat(target.getWriteLatency(resource)).isNull();
+
+        out.close();
+
+        assertThat(target.exists(resource)).isTrue();
+        assertThat(target.getResources()).containsExactly(resource);
+        assertThat(target.getContent(resource))
+            .isEqualTo(new byte[] {'a', 'b', 'c', 'd'});
+        assertThat(target.getWriteSizes(resource)).containsExactly(3, 1);
+        assertThat(target.isClosed(resource)).isTrue();
+        assertThat(target.getWriteLatency(resource)).isNotNull();
+        assertThat(target.getOutputStreamCount()).isEqualTo(1);
+        assertThat(target.getByteCount()).isEqualTo(4);
+    }
+
+    @Test
+    void writesStringAsUtf8() throws Exception
+    {
+        target.write(resource, "h\u00e9llo");
+
+        assertThat(target.getContent(resource))
+            .isEqualTo("h\u00e9llo".getBytes(StandardCharsets.UTF_8));
+        assertThat(target.isClosed(resource)).isTrue();
+    }
+
+    @Test
+    void copiesInputStream() throws Exception
+    {
+        target.copyTo(resource, new ByteArrayInputStream(new byte[10]));
+
+        assertThat(target.getContent(resource)).hasSize(10);
+        assertThat(target.isClosed(resource)).isTrue();
+    }
+
+    @Test
+    void replacesContentWithNewOutputStream() throws Exception
+    {
+        target.write(resource, "first");
+        target.write(resource, "second");
+
+        assertThat(target.getContent(resource))
+            .isEqualTo("second".getBytes(StandardCharsets.UTF_8));
+        assertThat(target.getOutputStreamCount()).isEqualTo(2);
+    }
+
+    @Test
+    void forgetsDeletedResource() throws Exception
+    {
+        target.write(resource, "content");
+        target.delete(resource);
+
+        assertThat(target.exists(resource)).isFalse();
+        assertThat(target.getContent(resource)).isNull();
+        assertThat(target.getWriteSizes(resource)).isEmpty();
+        assertThat(target.getWriteLatency(resource)).isNull();
+    }
+
+    @Test
+    void resolvesResourcesWithoutFiles()
+    {
+        assertThat(target.resolvedPathFor(resource))
+            .isEqualTo("/spec/file.out");
+        assertThat(target.getFile(resource)).isNull();
+    }
+
+    @Test
+    void throttlesOutputStreams() throws Exception
+    {
+        target.setBytesPerSecond(1000);
+
+        try (var out = target.getOutputStream(resource)) {
+            out.write(new byte[100]);
+        }
+
+        assertThat(target.getWriteLatency(resource))
+            .isGreaterThanOrEqualTo(Duration.ofMillis(100));
+    }
+}
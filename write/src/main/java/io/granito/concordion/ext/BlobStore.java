@@ -0,0 +1,276 @@
+/*
+ * Copyright 2025 Alexei Yashkov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.granito.concordion.ext;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.granito.concordion.ext.ContentWriter.Encoding;
+import org.concordion.api.Resource;
+import org.concordion.api.Target;
+
+/**
+ * A content-addressed store of written files. Each file is stored under
+ * the SHA-256 hash of its content, so identical content written under
+ * different names is stored only once per output directory in a test
+ * run, even when it is linked from different specifications. The blobs
+ * of the targets that are not backed by files are stored once per
+ * target. A blob is considered stored only after it has been written
+ * completely; the writers of the same content wait for the first one to
+ * finish.
+ */
+final class BlobStore {
+    /** The store shared by all extension instances. */
+    static final BlobStore SHARED = new BlobStore("/blobs/");
+
+    private final String root;
+
+    private final Map<Object, CompletableFuture<Void>> stored =
+        new ConcurrentHashMap<>();
+
+    private final AtomicLong storedBytes = new AtomicLong();
+
+    private final AtomicLong savedBytes = new AtomicLong();
+
+    BlobStore(String root)
+    {
+        this.root = root;
+    }
+
+    /**
+     * Writes the value to the store, unless the same content has been
+     * written already.
+     *
+     * @param target the target to write to
+     * @param file the original file, its extension (including the one
+     * before {@code .gz}) is preserved
+     * @param value the value to write
+     * @param encoding the encoding of the content
+     * @return the resource holding the content
+     * @throws IOException when an I/O error occurs
+     */
+    Resource write(Target target, Resource file, Object value,
+        Encoding encoding) throws IOException
+    {
+        var extension = extension(file);
+        var gzip = encoding.gzip();
+
+        if (!gzip && value instanceof byte[] bytes) {
+            var digest = digest();
+
+            digest.update(bytes);
+
+            return store(target, hash(digest), extension, bytes.length,
+                blob -> write(target, blob, out -> out.write(bytes)));
+        }
+
+        var path = gzip ? null : value instanceof Path p ? p :
+            value instanceof File f ? f.toPath() : null;
+
+        if (path != null)
+            return store(target, hash(path), extension, Files.size(path),
+                blob -> write(target, blob,
+                    out -> ContentWriter.copy(path, out)));
+
+        var temp = new Resource(root + UUID.randomUUID() + ".tmp");
+        var file = target.getFile(temp);
+
+        if (file != null)
+            return storeFile(target, file.toPath(), extension, value,
+                encoding);
+
+        var spool = Files.createTempFile("concordion-write", ".tmp");
+
+        try {
+            String hash;
+
+            try (var out = new DigestOutputStream(
+                Files.newOutputStream(spool), digest())) {
+                ContentWriter.transfer(value, out, encoding);
+                hash = hash(out.getMessageDigest());
+            }
+
+            return store(target, hash, extension, Files.size(spool),
+                blob -> write(target, blob,
+                    out -> ContentWriter.copy(spool, out)));
+        } finally {
+            Files.deleteIfExists(spool);
+        }
+    }
+
+    /**
+     * Returns the number of bytes actually written to the store.
+     *
+     * @return the number of bytes stored
+     */
+    long getStoredBytes()
+    {
+        return storedBytes.get();
+    }
+
+    /**
+     * Returns the number of bytes not written because the same content
+     * was already stored.
+     *
+     * @return the number of bytes saved
+     */
+    long getSavedBytes()
+    {
+        return savedBytes.get();
+    }
+
+    private Resource storeFile(Target target, Path temp, String extension,
+        Object value, Encoding encoding) throws IOException
+    {
+        Files.createDirectories(temp.getParent());
+
+        try {
+            String hash;
+
+            try (var out = new DigestOutputStream(
+                Files.newOutputStream(temp), digest())) {
+                ContentWriter.transfer(value, out, encoding);
+                hash = hash(out.getMessageDigest());
+            }
+
+            return store(target, hash, extension, Files.size(temp),
+                blob -> Files.move(temp, target.getFile(blob).toPath(),
+                    StandardCopyOption.ATOMIC_MOVE,
+                    StandardCopyOption.REPLACE_EXISTING));
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private Resource store(Target target, String hash, String extension,
+        long size, Publisher publisher) throws IOException
+    {
+        var blob = new Resource(root + hash + extension);
+        var key = key(target, blob);
+
+        while (true) {
+            var written = new CompletableFuture<Void>();
+            var existing = stored.putIfAbsent(key, written);
+
+            if (existing == null) {
+                try {
+                    publisher.publish(blob);
+                } catch (IOException | RuntimeException ex) {
+                    stored.remove(key, written);
+                    written.completeExceptionally(ex);
+
+                    throw ex;
+                }
+
+                written.complete(null);
+                storedBytes.addAndGet(size);
+
+                return blob;
+            }
+
+            try {
+                existing.join();
+            } catch (CompletionException ex) {
+                continue;
+            }
+
+            savedBytes.addAndGet(size);
+
+            return blob;
+        }
+    }
+
+    private Object key(Target target, Resource blob)
+    {
+        var file = target.getFile(blob);
+
+        return file != null ? file.toPath().toAbsolutePath().normalize() :
+            new Blob(target, blob.getPath());
+    }
+
+    private void write(Target target, Resource blob, Content content)
+        throws IOException
+    {
+        try (var out = target.getOutputStream(blob)) {
+            content.writeTo(out);
+        }
+    }
+
+    private String extension(Resource file)
+    {
+        var name = file.getName();
+        var dot = name.lastIndexOf('.');
+
+        if (dot > 0 && name.endsWith(".gz")) {
+            var previous = name.lastIndexOf('.', dot - 1);
+
+            if (previous > 0)
+                dot = previous;
+        }
+
+        return dot > 0 ? name.substring(dot) : "";
+    }
+
+    private String hash(Path path) throws IOException
+    {
+        try (var out = new DigestOutputStream(OutputStream.nullOutputStream(),
+            digest())) {
+            Files.copy(path, out);
+
+            return hash(out.getMessageDigest());
+        }
+    }
+
+    private String hash(MessageDigest digest)
+    {
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private MessageDigest digest()
+    {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private interface Content {
+        void writeTo(OutputStream out) throws IOException;
+    }
+
+    private interface Publisher {
+        void publish(Resource blob) throws IOException;
+    }
+
+    private record Blob(Target target, String path) {
+    }
+}
@@ -0,0 +1,265 @@
+/*
+ * Copyright 2025 Alexei Yashkov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.granito.concordion.ext;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Streams the supported expression evaluation results to an output
+ * stream in fixed-size chunks.
+ */
+final class ContentWriter {
+    private static final int BUFFER_SIZE = 8192;
+
+    private static final ThreadLocal<Encoder> ENCODERS = new ThreadLocal<>();
+
+    private ContentWriter()
+    {
+    }
+
+    /**
+     * Writes the value to the output stream using the given encoding.
+     * Streams, channels and readers are consumed and closed, the output
+     * stream is left open.
+     *
+     * @param value the value to write
+     * @param out the output stream
+     * @param encoding the encoding of the written content
+     * @throws IOException when an I/O error occurs
+     */
+    static void transfer(Object value, OutputStream out, Encoding encoding)
+        throws IOException
+    {
+        if (!encoding.gzip()) {
+            transfer(value, out, encoding.charset());
+
+            return;
+        }
+
+        try (var compressed = new GZIPOutputStream(new Unclosable(out),
+            BUFFER_SIZE)) {
+            transfer(value, compressed, encoding.charset());
+        }
+    }
+
+    /**
+     * Copies the file to the output stream, directly between the file
+     * channels if the output stream writes to a file.
+     *
+     * @param path the file to copy
+     * @param out the output stream
+     * @throws IOException when an I/O error occurs
+     */
+    static void copy(Path path, OutputStream out) throws IOException
+    {
+        if (!(out instanceof FileOutputStream fileOut)) {
+            Files.copy(path, out);
+
+            return;
+        }
+
+        try (var source = FileChannel.open(path, StandardOpenOption.READ)) {
+            var destination = fileOut.getChannel();
+            var size = source.size();
+            var position = 0L;
+
+            while (position < size) {
+                var count = source.transferTo(position, size - position,
+                    destination);
+
+                if (count <= 0)
+                    break;
+
+                position += count;
+            }
+        }
+    }
+
+    private static void transfer(Object value, OutputStream out,
+        Charset charset) throws IOException
+    {
+        if (value instanceof byte[] bytes)
+            out.write(bytes);
+        else if (value instanceof InputStream in)
+            try (in) {
+                in.transferTo(out);
+            }
+        else if (value instanceof ReadableByteChannel channel)
+            try (channel) {
+                transfer(channel, out);
+            }
+        else if (value instanceof Path path)
+            copy(path, out);
+        else if (value instanceof File file)
+            copy(file.toPath(), out);
+        else if (value instanceof Reader reader)
+            try (reader) {
+                encoder(charset).encode(reader, out);
+            }
+        else
+            encoder(charset).encode(value instanceof CharSequence text ?
+                text : value.toString(), out);
+    }
+
+    private static void transfer(ReadableByteChannel channel,
+        OutputStream out) throws IOException
+    {
+        var buffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+        while (channel.read(buffer) >= 0) {
+            out.write(buffer.array(), 0, buffer.position());
+            buffer.clear();
+        }
+    }
+
+    private static Encoder encoder(Charset charset)
+    {
+        var encoder = ENCODERS.get();
+
+        if (encoder == null || !encoder.charset().equals(charset)) {
+            encoder = new Encoder(charset);
+            ENCODERS.set(encoder);
+        }
+
+        return encoder;
+    }
+
+    /**
+     * The encoding of the written content.
+     *
+     * @param charset the charset to encode text with
+     * @param gzip {@code true} to compress the content with gzip
+     */
+    record Encoding(Charset charset, boolean gzip) {
+    }
+
+    /**
+     * A charset encoder with its buffers, reused by a thread for all
+     * the text it writes, so that the text is encoded straight into the
+     * output stream without intermediate strings and byte arrays.
+     */
+    private static class Encoder {
+        private final CharsetEncoder encoder;
+
+        private final CharBuffer chars = CharBuffer.allocate(BUFFER_SIZE);
+
+        private final ByteBuffer bytes = ByteBuffer.allocate(BUFFER_SIZE);
+
+        Encoder(Charset charset)
+        {
+            encoder = charset.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        }
+
+        Charset charset()
+        {
+            return encoder.charset();
+        }
+
+        void encode(CharSequence text, OutputStream out) throws IOException
+        {
+            encoder.reset();
+            bytes.clear();
+
+            encode(CharBuffer.wrap(text), out, true);
+            flush(out);
+        }
+
+        void encode(Reader reader, OutputStream out) throws IOException
+        {
+            encoder.reset();
+            chars.clear();
+            bytes.clear();
+
+            while (reader.read(chars) >= 0) {
+                chars.flip();
+                encode(chars, out, false);
+                chars.compact();
+            }
+
+            chars.flip();
+            encode(chars, out, true);
+            flush(out);
+        }
+
+        private void encode(CharBuffer in, OutputStream out,
+            boolean endOfInput) throws IOException
+        {
+            while (true) {
+                var result = encoder.encode(in, bytes, endOfInput);
+
+                if (result.isOverflow())
+                    drain(out);
+                else if (result.isUnderflow())
+                    return;
+                else
+                    result.throwException();
+            }
+        }
+
+        private void flush(OutputStream out) throws IOException
+        {
+            while (encoder.flush(bytes).isOverflow())
+                drain(out);
+
+            drain(out);
+        }
+
+        private void drain(OutputStream out) throws IOException
+        {
+            out.write(bytes.array(), 0, bytes.position());
+            bytes.clear();
+        }
+    }
+
+    private static class Unclosable extends FilterOutputStream {
+        Unclosable(OutputStream out)
+        {
+            super(out);
+        }
+
+        @Override
+        public void write(byte[] buf, int off, int len) throws IOException
+        {
+            out.write(buf, off, len);
+        }
+
+        @Override
+        public void close() throws IOException
+        {
+            flush();
+        }
+    }
+}
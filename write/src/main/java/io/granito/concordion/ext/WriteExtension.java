@@ -19,103 +19,435 @@
 import static java.lang.String.format;
 import static org.concordion.internal.util.Check.notEmpty;
 
+import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
 import java.io.UncheckedIOException;
 import java.net.URI;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
+import io.granito.concordion.ext.ContentWriter.Encoding;
+import nu.xom.ParentNode;
 import org.concordion.api.AbstractCommand;
 import org.concordion.api.CommandCall;
+import org.concordion.api.Element;
 import org.concordion.api.Evaluator;
 import org.concordion.api.Fixture;
 import org.concordion.api.Resource;
+import org.concordion.api.Result;
 import org.concordion.api.ResultRecorder;
 import org.concordion.api.Target;
 import org.concordion.api.extension.ConcordionExtender;
 import org.concordion.api.extension.ConcordionExtension;
 import org.concordion.api.listener.ConcordionBuildEvent;
 import org.concordion.api.listener.ConcordionBuildListener;
+import org.concordion.api.listener.ExampleEvent;
+import org.concordion.api.listener.ExampleListener;
+import org.concordion.api.listener.SpecificationProcessingEvent;
+import org.concordion.api.listener.SpecificationProcessingListener;
 
 /**
  * A Concordion extension that writes the result of an expression
  * evaluation to a file and links the file to the specification.
+ * The result is streamed to the file in fixed-size chunks, so large
+ * payloads are never fully materialized in memory by the extension.
+ * Optionally, the files can be written asynchronously by a background
+ * thread, see {@link #setAsynchronous(boolean)}.
+ *
+ * <p>Each time the extension is added to a Concordion instance, it
+ * registers a separate {@code write} command bound to the target of
+ * that instance, so the same extension may serve several specifications
+ * processed concurrently, each specification writing to its own target,
+ * no matter which threads build and process them.</p>
  */
-public class WriteExtension extends AbstractCommand
-    implements ConcordionExtension, ConcordionBuildListener {
+public class WriteExtension implements ConcordionExtension {
     private static final String NAMESPACE = "urn:concordion-extensions:2010";
 
     private static final String COMMAND = "write";
 
     private static final String HREF = "href";
 
-    private Target target;
+    private static final String COMPRESS = "compress";
+
+    private static final String GZIP = "gzip";
+
+    private static final String GZIP_STATIC = "gzip-static";
+
+    private static final String GZIP_SUFFIX = ".gz";
+
+    private static final String CHARSET = "charset";
+
+    private static final int QUEUE_CAPACITY = 64;
+
+    private volatile boolean asynchronous = false;
+
+    private volatile boolean deduplication = false;
 
     /**
-     * Registers the extension to the {@link ConcordionExtender}.
+     * Registers a new {@code write} command, bound to the target of
+     * the Concordion instance being built, to the
+     * {@link ConcordionExtender}.
      *
      * @param extender the Concordion extender for the registration
      */
     @Override
     public void addTo(ConcordionExtender extender)
     {
-        extender.withBuildListener(this);
-        extender.withCommand(NAMESPACE, COMMAND, this);
+        var writer = new SpecificationWriter();
+
+        extender.withBuildListener(writer);
+        extender.withSpecificationProcessingListener(writer);
+        extender.withExampleListener(writer);
+        extender.withCommand(NAMESPACE, COMMAND, writer);
     }
 
     /**
-     * Captures the Concordion target from the {@link ConcordionBuildEvent}.
+     * Enables or disables asynchronous writing. When enabled, the
+     * {@code write} command only evaluates the expression and queues
+     * the result to be written by a background thread; the queued
+     * writes of an example are completed when the example finishes,
+     * and all others before the specification output is finalized.
+     * A failed write marks the linking element with the
+     * {@code failure} style class and records an exception result.
+     * If the queue is full, the command writes the file itself.
+     * The default is {@code false}.
+     *
+     * <p>Note that stream and reader results are consumed by
+     * the background thread, so they must remain readable after
+     * the expression evaluation.</p>
      *
-     * @param event the Concordion build event
+     * @param asynchronous {@code true} to write files asynchronously
      */
-    @Override
-    public void concordionBuilt(ConcordionBuildEvent event)
+    public void setAsynchronous(boolean asynchronous)
     {
-        target = event.getTarget();
+        this.asynchronous = asynchronous;
     }
 
     /**
-     * Executes the {@code write} command that writes the evaluated
-     * expression to a file and links the file as {@code href} attribute
-     * of the element (normally {@code <a>}).
+     * Enables or disables content deduplication. When enabled, the
+     * content is stored once in the {@code blobs} directory under
+     * the Concordion output directory, named by the SHA-256 hash of
+     * the content, and the {@code href} attribute of the element is
+     * rewritten to link the stored file. Identical content written
+     * to the same output directory in the same test run, even by
+     * different specifications, is stored only once.
+     * The default is {@code false}.
      *
-     * @param call the command call
-     * @param evaluator the evaluator for expression evaluation
-     * @param recorder the result recorder
-     * @param fixture the fixture
+     * @param deduplication {@code true} to deduplicate written files
      */
-    @Override
-    public void execute(CommandCall call, Evaluator evaluator,
-        ResultRecorder recorder, Fixture fixture)
+    public void setDeduplication(boolean deduplication)
     {
-        var element = call.getElement();
-        var href = element.getAttributeValue(HREF);
+        this.deduplication = deduplication;
+    }
 
-        notEmpty(href, "'%s' attribute must be defined", HREF);
+    /**
+     * Returns the number of bytes written to the deduplicated store
+     * by all instances of this extension.
+     *
+     * @return the number of bytes stored
+     */
+    public long getStoredBytes()
+    {
+        return BlobStore.SHARED.getStoredBytes();
+    }
 
-        if (URI.create(href).isAbsolute())
-            throw new IllegalArgumentException(format(
-                "'%s' may not be an absolute URL, was: %s", HREF, href));
+    /**
+     * Returns the number of bytes that were not written by all
+     * instances of this extension, because the same content was
+     * already present in the deduplicated store.
+     *
+     * @return the number of bytes saved
+     */
+    public long getSavedBytes()
+    {
+        return BlobStore.SHARED.getSavedBytes();
+    }
+
+    /**
+     * The {@code write} command of a single Concordion instance. It
+     * captures the target of the instance when it is built and writes
+     * all the files of the specification to it.
+     */
+    final class SpecificationWriter extends AbstractCommand
+        implements ConcordionBuildListener, SpecificationProcessingListener,
+        ExampleListener {
+        private final List<PendingWrite> pending = new ArrayList<>();
+
+        private volatile Target target;
+
+        private ExecutorService executor;
+
+        /**
+         * Captures the Concordion target from the
+         * {@link ConcordionBuildEvent}.
+         *
+         * @param event the Concordion build event
+         */
+        @Override
+        public void concordionBuilt(ConcordionBuildEvent event)
+        {
+            target = event.getTarget();
+        }
+
+        /**
+         * Does nothing, the files are written as the commands are
+         * executed.
+         *
+         * @param event the specification processing event
+         */
+        @Override
+        public void beforeProcessingSpecification(
+            SpecificationProcessingEvent event)
+        {
+        }
+
+        /**
+         * Does nothing, the files are written as the commands are
+         * executed.
+         *
+         * @param event the example event
+         */
+        @Override
+        public void beforeExample(ExampleEvent event)
+        {
+        }
+
+        /**
+         * Waits for the queued asynchronous writes of the example to
+         * complete and marks the elements linking the files that failed
+         * to be written, so that the failures are recorded in
+         * the results of the example.
+         *
+         * @param event the example event
+         */
+        @Override
+        public void afterExample(ExampleEvent event)
+        {
+            var writes = new ArrayList<PendingWrite>();
+
+            synchronized (this) {
+                for (var i = pending.iterator(); i.hasNext();) {
+                    var write = i.next();
+
+                    if (write.within(event.getElement())) {
+                        writes.add(write);
+                        i.remove();
+                    }
+                }
+
+                shutdown();
+            }
 
-        var file = call.getResource().getRelativeResource(href);
-        var expr = call.getExpression();
+            for (var write: writes)
+                write.await();
+        }
+
+        /**
+         * Waits for all remaining queued asynchronous writes of
+         * the specification to complete and marks the elements linking
+         * the files that failed to be written.
+         *
+         * @param event the specification processing event
+         */
+        @Override
+        public void afterProcessingSpecification(
+            SpecificationProcessingEvent event)
+        {
+            List<PendingWrite> writes;
+
+            synchronized (this) {
+                writes = List.copyOf(pending);
+                pending.clear();
+                shutdown();
+            }
+
+            for (var write: writes)
+                write.await();
+        }
+
+        /**
+         * Executes the {@code write} command that writes the evaluated
+         * expression to a file and links the file as {@code href} attribute
+         * of the element (normally {@code <a>}). The following results
+         * are supported:
+         * <ul>
+         * <li>{@code byte[]} is written as is;</li>
+         * <li>{@link InputStream}, {@link ReadableByteChannel} and
+         * {@link Reader} are read to the end and closed;</li>
+         * <li>{@link Path} and {@link File} are copied, directly between
+         * the file channels when the target writes to a file;</li>
+         * <li>{@link CharSequence} and any other object (using its
+         * {@code toString()} method) are encoded straight into the file
+         * using UTF-8 or the charset given by {@code charset} attribute in
+         * the extension namespace.</li>
+         * </ul>
+         * When the element has {@code compress} attribute in the extension
+         * namespace, the content is compressed on the fly and written to
+         * a file with {@code .gz} suffix. With {@code "gzip"} value,
+         * the {@code href} attribute is rewritten to link the compressed
+         * file; with {@code "gzip-static"} value, it is kept as is for
+         * the web servers serving pre-compressed files.
+         *
+         * @param call the command call
+         * @param evaluator the evaluator for expression evaluation
+         * @param recorder the result recorder
+         * @param fixture the fixture
+         */
+        @Override
+        public void execute(CommandCall call, Evaluator evaluator,
+            ResultRecorder recorder, Fixture fixture)
+        {
+            var element = call.getElement();
+            var href = element.getAttributeValue(HREF);
+
+            notEmpty(href, "'%s' attribute must be defined", HREF);
+
+            if (URI.create(href).isAbsolute())
+                throw new IllegalArgumentException(format(
+                    "'%s' may not be an absolute URL, was: %s", HREF, href));
+
+            var compress = element.getAttributeValue(COMPRESS, NAMESPACE);
+            var gzip = compress != null && !compress.isEmpty();
+
+            if (gzip && !GZIP.equals(compress) && !GZIP_STATIC.equals(compress))
+                throw new IllegalArgumentException(format(
+                    "'%s' must be either '%s' or '%s', was: %s", COMPRESS, GZIP,
+                    GZIP_STATIC, compress));
 
-        notEmpty(expr, "'%s' command must define an expression", COMMAND);
+            if (GZIP.equals(compress))
+                element.addAttribute(HREF, href + GZIP_SUFFIX);
+
+            var encoding = new Encoding(charset(element), gzip);
+            var file = call.getResource()
+                .getRelativeResource(gzip ? href + GZIP_SUFFIX : href);
+            var expr = call.getExpression();
+
+            notEmpty(expr, "'%s' command must define an expression", COMMAND);
+
+            var spec = call.getResource();
+            var value = evaluator.evaluate(expr);
+
+            if (asynchronous)
+                submit(element, recorder, spec, file, value, target, encoding);
+            else
+                link(element, spec, file, write(target, file, value, encoding));
+        }
+
+        private synchronized void submit(Element element,
+            ResultRecorder recorder, Resource spec, Resource file,
+            Object value, Target target, Encoding encoding)
+        {
+            if (executor == null)
+                executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.SECONDS,
+                    new ArrayBlockingQueue<>(QUEUE_CAPACITY), runnable -> {
+                        var thread = new Thread(runnable, "concordion-write");
+
+                        thread.setDaemon(true);
+
+                        return thread;
+                    }, new ThreadPoolExecutor.CallerRunsPolicy());
+
+            pending.add(new PendingWrite(element, recorder, spec, file,
+                executor.submit(() -> write(target, file, value,
+                    encoding))));
+        }
 
-        write(file, toBytes(evaluator.evaluate(expr)));
+        private void shutdown()
+        {
+            if (executor != null && pending.isEmpty()) {
+                executor.shutdown();
+                executor = null;
+            }
+        }
     }
 
-    private byte[] toBytes(Object value)
+    private static Charset charset(Element element)
     {
-        return value instanceof byte[] bytes ? bytes :
-            value.toString().getBytes(StandardCharsets.UTF_8);
+        var charset = element.getAttributeValue(CHARSET, NAMESPACE);
+
+        if (charset == null || charset.isEmpty())
+            return StandardCharsets.UTF_8;
+
+        try {
+            return Charset.forName(charset);
+        } catch (IllegalArgumentException ex) {
+            throw new IllegalArgumentException(format(
+                "'%s' must be a supported charset, was: %s", CHARSET,
+                charset), ex);
+        }
     }
 
-    private void write(Resource file, byte[] bytes)
+    private Resource write(Target target, Resource file, Object value,
+        Encoding encoding)
     {
+        if (deduplication)
+            try {
+                return BlobStore.SHARED.write(target, file, value,
+                    encoding);
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+
         try (var out = target.getOutputStream(file)) {
-            out.write(bytes);
+            ContentWriter.transfer(value, out, encoding);
         } catch (IOException ex) {
             throw new UncheckedIOException(ex);
         }
+
+        return file;
+    }
+
+    private static void link(Element element, Resource spec, Resource file,
+        Resource written)
+    {
+        if (!written.equals(file))
+            element.addAttribute(HREF, spec.getRelativePath(written));
+    }
+
+    private record PendingWrite(Element element, ResultRecorder recorder,
+        Resource spec, Resource file, Future<Resource> future) {
+        void await()
+        {
+            try {
+                link(element, spec, file, future.get());
+            } catch (ExecutionException ex) {
+                fail(ex.getCause());
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                fail(ex);
+            }
+        }
+
+        boolean within(Element example)
+        {
+            var root = example.getXomElement();
+
+            for (ParentNode node = element.getXomElement(); node != null;
+                node = node.getParent())
+                if (node == root)
+                    return true;
+
+            return false;
+        }
+
+        private void fail(Throwable cause)
+        {
+            element.addStyleClass("failure");
+            element.addAttribute("title", "unable to write: " +
+                cause.getMessage());
+            recorder.record(Result.EXCEPTION);
+        }
     }
 }
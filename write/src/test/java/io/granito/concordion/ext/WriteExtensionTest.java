@@ -18,30 +18,70 @@
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.platform.testkit.engine.EventConditions.event;
+import static org.junit.platform.testkit.engine.EventConditions.finishedSuccessfully;
+import static org.junit.platform.testkit.engine.EventConditions.finishedWithFailure;
+import static org.junit.platform.testkit.engine.EventConditions.test;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
+import java.io.ByteArrayInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.StringReader;
 import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.zip.GZIPInputStream;
 
 import io.granito.concordion.test.TestOutputStream;
+import io.granito.concordion.test.TestTarget;
+import nu.xom.Attribute;
+import org.concordion.api.Command;
 import org.concordion.api.CommandCall;
 import org.concordion.api.Element;
 import org.concordion.api.Evaluator;
 import org.concordion.api.Fixture;
 import org.concordion.api.Resource;
+import org.concordion.api.Result;
 import org.concordion.api.ResultRecorder;
 import org.concordion.api.Target;
 import org.concordion.api.extension.ConcordionExtender;
 import org.concordion.api.listener.ConcordionBuildEvent;
+import org.concordion.api.listener.ExampleEvent;
+import org.concordion.api.listener.SpecificationProcessingEvent;
+import org.concordion.integration.junit.platform.engine.BaseConcordionTestEngine;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.platform.engine.discovery.DiscoverySelectors;
+import org.junit.platform.testkit.engine.EngineTestKit;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoSettings;
+import spec.write.FailingWriteFixture;
 
 @MockitoSettings(strictness = org.mockito.quality.Strictness.LENIENT)
 class WriteExtensionTest {
@@ -51,6 +91,8 @@ class WriteExtensionTest {
 
     private final WriteExtension extension = new WriteExtension();
 
+    private WriteExtension.SpecificationWriter writer;
+
     private final TestOutputStream out = new TestOutputStream();
 
     private final Resource spec = new Resource("/target/test/spec.html");
@@ -74,17 +116,27 @@ class WriteExtensionTest {
     void setUp()
     {
         doReturn(extender).when(extender).withBuildListener(any());
+        doReturn(extender).when(extender)
+            .withSpecificationProcessingListener(any());
+        doReturn(extender).when(extender).withExampleListener(any());
         doReturn(extender).when(extender).withCommand(any(), any(), any());
     }
 
     @Test
-    void registersItselfWhenAddedToExtender()
+    void registersWriterForEachConcordionWhenAddedToExtender()
     {
-        extension.addTo(extender);
+        var first = register(extender);
+        var second = register(extender);
 
-        verify(extender).withBuildListener(extension);
-        verify(extender).withCommand("urn:concordion-extensions:2010",
-            "write", extension);
+        assertThat(first).isNotSameAs(second);
+
+        for (var writer: List.of(first, second)) {
+            verify(extender).withBuildListener(writer);
+            verify(extender).withSpecificationProcessingListener(writer);
+            verify(extender).withExampleListener(writer);
+            verify(extender).withCommand("urn:concordion-extensions:2010",
+                "write", writer);
+        }
     }
 
     @Nested
@@ -92,8 +144,8 @@ class WhenRegistered {
         @BeforeEach
         void setUp() throws Exception
         {
-            extension.addTo(extender);
-            extension.concordionBuilt(new ConcordionBuildEvent(target));
+            writer = register(extender);
+            writer.concordionBuilt(new ConcordionBuildEvent(target));
 
             doReturn(out).when(target).getOutputStream(any());
         }
@@ -105,7 +157,7 @@ void writesFileWhenExecuteWithByteExpression() throws Exception
 
             doReturn(content).when(evaluator).evaluate(EXPR);
 
-            extension.execute(call(HREF, EXPR), evaluator, recorder,
+            writer.execute(call(HREF, EXPR), evaluator, recorder,
                 fixture);
 
             verify(target)
@@ -123,7 +175,7 @@ void writesFileWhenExecuteWithStringExpression() throws Exception
 
             doReturn(content).when(evaluator).evaluate(EXPR);
 
-            extension.execute(call, evaluator, recorder, fixture);
+            writer.execute(call, evaluator, recorder, fixture);
 
             verify(target)
                 .getOutputStream(new Resource("/target/test/file.out"));
@@ -140,7 +192,7 @@ void writesFileWhenExecuteWithObjectExpression() throws Exception
 
             doReturn(content).when(evaluator).evaluate(EXPR);
 
-            extension.execute(call, evaluator, recorder, fixture);
+            writer.execute(call, evaluator, recorder, fixture);
 
             verify(target)
                 .getOutputStream(new Resource("/target/test/file.out"));
@@ -149,12 +201,192 @@ void writesFileWhenExecuteWithObjectExpression() throws Exception
             assertThat(out.isClosed()).isTrue();
         }
 
+        @Test
+        void writesFileWhenExecuteWithLargeCharSequenceExpression()
+        {
+            var content = new StringBuilder();
+
+            for (var i = 0; i < 10000; i++)
+                content.append("line ").append(i).append('\n');
+
+            doReturn(content).when(evaluator).evaluate(EXPR);
+
+            writer.execute(call(HREF, EXPR), evaluator, recorder,
+                fixture);
+
+            assertThat(out).hasToString(content.toString());
+            assertThat(out.isClosed()).isTrue();
+        }
+
+        @Test
+        void encodesTextWithCharsetWhenExecuteWithCharsetAttribute()
+            throws Exception
+        {
+            var content = new StringBuilder("café ");
+
+            content.append("ü".repeat(10000));
+
+            doReturn(content).when(evaluator).evaluate(EXPR);
+
+            writer.execute(call(HREF, EXPR, "charset", "ISO-8859-1"),
+                evaluator, recorder, fixture);
+
+            assertThat(out.toByteArray()).isEqualTo(content.toString()
+                .getBytes(StandardCharsets.ISO_8859_1));
+        }
+
+        @Test
+        void encodesReaderWithCharsetWhenExecuteWithCharsetAttribute()
+            throws Exception
+        {
+            var content = "Grüße " + "€".repeat(10000);
+
+            doReturn(new StringReader(content)).when(evaluator)
+                .evaluate(EXPR);
+
+            writer.execute(call(HREF, EXPR, "charset", "UTF-16BE"),
+                evaluator, recorder, fixture);
+
+            assertThat(out.toByteArray())
+                .isEqualTo(content.getBytes(StandardCharsets.UTF_16BE));
+        }
+
+        @Test
+        void replacesUnmappableCharactersWhenEncoding() throws Exception
+        {
+            doReturn("a€b").when(evaluator).evaluate(EXPR);
+
+            writer.execute(call(HREF, EXPR, "charset", "US-ASCII"),
+                evaluator, recorder, fixture);
+
+            assertThat(out).hasToString("a?b");
+        }
+
+        @Test
+        void throwsExceptionWhenUnsupportedCharset()
+        {
+            assertThatThrownBy(() -> writer.execute(
+                    call(HREF, EXPR, "charset", "no-such-charset"),
+                    evaluator, recorder, fixture))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("'charset' must be a supported charset, " +
+                    "was: no-such-charset");
+        }
+
+        @Test
+        void writesFileAndClosesStreamWhenExecuteWithInputStreamExpression()
+            throws Exception
+        {
+            var content = "content".getBytes(StandardCharsets.UTF_8);
+            var in = spy(new ByteArrayInputStream(content));
+
+            doReturn(in).when(evaluator).evaluate(EXPR);
+
+            writer.execute(call(HREF, EXPR), evaluator, recorder,
+                fixture);
+
+            assertThat(out.toByteArray()).isEqualTo(content);
+            assertThat(out.isClosed()).isTrue();
+            verify(in).close();
+        }
+
+        @Test
+        void writesFileAndClosesChannelWhenExecuteWithChannelExpression()
+        {
+            var content = new byte[20000];
+
+            for (var i = 0; i < content.length; i++)
+                content[i] = (byte)i;
+
+            var channel = Channels.newChannel(
+                new ByteArrayInputStream(content));
+
+            doReturn(channel).when(evaluator).evaluate(EXPR);
+
+            writer.execute(call(HREF, EXPR), evaluator, recorder,
+                fixture);
+
+            assertThat(out.toByteArray()).isEqualTo(content);
+            assertThat(out.isClosed()).isTrue();
+            assertThat(channel.isOpen()).isFalse();
+        }
+
+        @Test
+        void writesFileAndClosesReaderWhenExecuteWithReaderExpression()
+        {
+            var reader = spy(new StringReader("contenu écrit"));
+
+            doReturn(reader).when(evaluator).evaluate(EXPR);
+
+            writer.execute(call(HREF, EXPR), evaluator, recorder,
+                fixture);
+
+            assertThat(out).hasToString("contenu écrit");
+            assertThat(out.isClosed()).isTrue();
+            verify(reader).close();
+        }
+
+        @Test
+        void writesFileWhenExecuteWithPathExpression(@TempDir Path dir)
+            throws Exception
+        {
+            var content = "content".getBytes(StandardCharsets.UTF_8);
+            var path = Files.write(dir.resolve("source.out"), content);
+
+            doReturn(path).when(evaluator).evaluate(EXPR);
+
+            writer.execute(call(HREF, EXPR), evaluator, recorder,
+                fixture);
+
+            assertThat(out.toByteArray()).isEqualTo(content);
+            assertThat(out.isClosed()).isTrue();
+        }
+
+        @Test
+        void writesFileWhenExecuteWithFileExpression(@TempDir Path dir)
+            throws Exception
+        {
+            var content = "content".getBytes(StandardCharsets.UTF_8);
+            var file = Files.write(dir.resolve("source.out"), content)
+                .toFile();
+
+            doReturn(file).when(evaluator).evaluate(EXPR);
+
+            writer.execute(call(HREF, EXPR), evaluator, recorder,
+                fixture);
+
+            assertThat(out.toByteArray()).isEqualTo(content);
+            assertThat(out.isClosed()).isTrue();
+        }
+
+        @Test
+        void copiesFileWhenExecuteWithPathExpressionAndFileTarget(
+            @TempDir Path dir) throws Exception
+        {
+            var content = new byte[100000];
+
+            for (var i = 0; i < content.length; i++)
+                content[i] = (byte)(i % 251);
+
+            var source = Files.write(dir.resolve("source.out"), content);
+            var destination = dir.resolve("destination.out");
+
+            doReturn(new FileOutputStream(destination.toFile()))
+                .when(target).getOutputStream(any());
+            doReturn(source).when(evaluator).evaluate(EXPR);
+
+            writer.execute(call(HREF, EXPR), evaluator, recorder,
+                fixture);
+
+            assertThat(destination).hasBinaryContent(content);
+        }
+
         @Test
         void throwsExceptionWhenNoHref()
         {
             var call = call(null, EXPR);
 
-            assertThatThrownBy(() -> extension.execute(call, evaluator,
+            assertThatThrownBy(() -> writer.execute(call, evaluator,
                     recorder, fixture))
                 .isInstanceOf(RuntimeException.class)
                 .hasMessageContaining("href");
@@ -165,7 +397,7 @@ void throwsExceptionWhenEmptyHref()
         {
             var call = call("", EXPR);
 
-            assertThatThrownBy(() -> extension.execute(call, evaluator,
+            assertThatThrownBy(() -> writer.execute(call, evaluator,
                     recorder, fixture))
                 .isInstanceOf(RuntimeException.class)
                 .hasMessageContaining("href");
@@ -176,7 +408,7 @@ void throwsExceptionWhenUrlHref()
         {
             var call = call("http://localhost/test.out", EXPR);
 
-            assertThatThrownBy(() -> extension.execute(call, evaluator,
+            assertThatThrownBy(() -> writer.execute(call, evaluator,
                     recorder, fixture))
                 .isInstanceOf(IllegalArgumentException.class)
                 .hasMessageContaining("URL");
@@ -187,7 +419,7 @@ void throwsExceptionWhenAbsolutePathHref()
         {
             var call = call("/test.out", EXPR);
 
-            assertThatThrownBy(() -> extension.execute(call, evaluator,
+            assertThatThrownBy(() -> writer.execute(call, evaluator,
                     recorder, fixture))
                 .isInstanceOf(RuntimeException.class)
                 .hasMessageContaining("Relative");
@@ -198,7 +430,7 @@ void throwsExceptionWhenNoExpression()
         {
             var call = call(HREF, null);
 
-            assertThatThrownBy(() -> extension.execute(call, evaluator,
+            assertThatThrownBy(() -> writer.execute(call, evaluator,
                     recorder, fixture))
                 .isInstanceOf(RuntimeException.class)
                 .hasMessageContaining("expression");
@@ -209,7 +441,7 @@ void throwsExceptionWhenEmptyExpression()
         {
             var call = call(HREF, "");
 
-            assertThatThrownBy(() -> extension.execute(call, evaluator,
+            assertThatThrownBy(() -> writer.execute(call, evaluator,
                     recorder, fixture))
                 .isInstanceOf(RuntimeException.class)
                 .hasMessageContaining("expression");
@@ -224,7 +456,7 @@ void wrapsExceptionWhenGettingOutputStreamFails() throws Exception
             doReturn("content").when(evaluator).evaluate(any());
             doThrow(t).when(target).getOutputStream(any());
 
-            assertThatThrownBy(() -> extension.execute(call, evaluator,
+            assertThatThrownBy(() -> writer.execute(call, evaluator,
                     recorder, fixture))
                 .isInstanceOf(UncheckedIOException.class)
                 .cause().isSameAs(t);
@@ -240,7 +472,7 @@ void wrapsExceptionWhenWritingFails()
 
             doReturn("content").when(evaluator).evaluate(any());
 
-            assertThatThrownBy(() -> extension.execute(call, evaluator,
+            assertThatThrownBy(() -> writer.execute(call, evaluator,
                     recorder, fixture))
                 .isInstanceOf(UncheckedIOException.class)
                 .cause().isSameAs(t);
@@ -258,7 +490,7 @@ void wrapsExceptionWhenClosingOutputStreamFails()
 
             doReturn("content").when(evaluator).evaluate(any());
 
-            assertThatThrownBy(() -> extension.execute(call, evaluator,
+            assertThatThrownBy(() -> writer.execute(call, evaluator,
                     recorder, fixture))
                 .isInstanceOf(UncheckedIOException.class)
                 .cause().isSameAs(t);
@@ -276,7 +508,7 @@ void wrapsFirstExceptionWhenBothWritingAndClosingFail()
 
             doReturn("content").when(evaluator).evaluate(any());
 
-            assertThatThrownBy(() -> extension.execute(call, evaluator,
+            assertThatThrownBy(() -> writer.execute(call, evaluator,
                 recorder, fixture))
                 .isInstanceOf(UncheckedIOException.class)
                 .cause().isSameAs(t1);
@@ -284,14 +516,609 @@ void wrapsFirstExceptionWhenBothWritingAndClosingFail()
             assertThat(t1).hasSuppressedException(t2);
         }
 
-        private CommandCall call(String href, String expr)
+        @Nested
+        class WhenAsynchronous {
+            private final SpecificationProcessingEvent event =
+                new SpecificationProcessingEvent(spec, new Element("html"));
+
+            @BeforeEach
+            void setUp()
+            {
+                extension.setAsynchronous(true);
+            }
+
+            @Test
+            void writesFilesBeforeSpecificationIsFinalized() throws Exception
+            {
+                var call = call(HREF, EXPR);
+
+                doReturn("content").when(evaluator).evaluate(EXPR);
+
+                writer.execute(call, evaluator, recorder, fixture);
+                writer.afterProcessingSpecification(event);
+
+                verify(target)
+                    .getOutputStream(new Resource("/target/test/file.out"));
+
+                assertThat(out).hasToString("content");
+                assertThat(out.isClosed()).isTrue();
+                assertThat(call.getElement().getAttributeValue("class"))
+                    .isNull();
+                verify(recorder, never()).record(any());
+            }
+
+            @Test
+            void marksElementAndRecordsExceptionWhenWritingFails()
+            {
+                var call = call(HREF, EXPR);
+
+                out.setWriteException(new IOException("write"));
+
+                doReturn("content").when(evaluator).evaluate(EXPR);
+
+                writer.execute(call, evaluator, recorder, fixture);
+                writer.afterProcessingSpecification(event);
+
+                var element = call.getElement();
+
+                assertThat(out.isClosed()).isTrue();
+                assertThat(element.getAttributeValue("class"))
+                    .contains("failure");
+                assertThat(element.getAttributeValue("title"))
+                    .contains("write");
+                verify(recorder).record(Result.EXCEPTION);
+            }
+
+            @Test
+            void recordsExceptionWhenExampleWithFailedWriteFinishes()
+            {
+                var example = new Element("div");
+                var call = call(HREF, EXPR);
+
+                example.appendChild(call.getElement());
+                out.setWriteException(new IOException("write"));
+
+                doReturn("content").when(evaluator).evaluate(EXPR);
+
+                writer.execute(call, evaluator, recorder, fixture);
+                writer.afterExample(exampleEvent(example));
+
+                assertThat(call.getElement().getAttributeValue("class"))
+                    .contains("failure");
+                verify(recorder).record(Result.EXCEPTION);
+
+                writer.afterProcessingSpecification(event);
+
+                verify(recorder, times(1)).record(any());
+            }
+
+            @Test
+            void keepsWritesOutsideExampleUntilSpecificationIsFinalized()
+            {
+                var call = call(HREF, EXPR);
+
+                out.setWriteException(new IOException("write"));
+
+                doReturn("content").when(evaluator).evaluate(EXPR);
+
+                writer.execute(call, evaluator, recorder, fixture);
+                writer.afterExample(exampleEvent(new Element("div")));
+
+                verify(recorder, never()).record(any());
+
+                writer.afterProcessingSpecification(event);
+
+                verify(recorder).record(Result.EXCEPTION);
+            }
+
+            @Test
+            void writesFilesAgainAfterSpecificationIsFinalized()
+            {
+                doReturn("content").when(evaluator).evaluate(EXPR);
+
+                writer.afterProcessingSpecification(event);
+                writer.execute(call(HREF, EXPR), evaluator, recorder,
+                    fixture);
+                writer.afterProcessingSpecification(event);
+
+                assertThat(out).hasToString("content");
+            }
+        }
+
+        @Nested
+        class WhenDeduplicating {
+            private final String content = "content " + UUID.randomUUID();
+
+            private String blob;
+
+            @BeforeEach
+            void setUp() throws Exception
+            {
+                extension.setDeduplication(true);
+
+                var digest = MessageDigest.getInstance("SHA-256")
+                    .digest(content.getBytes(StandardCharsets.UTF_8));
+
+                blob = "/blobs/" + HexFormat.of().formatHex(digest) + ".out";
+            }
+
+            @Test
+            void storesContentByHashAndLinksIt() throws Exception
+            {
+                var call = call(HREF, EXPR);
+
+                doReturn(content).when(evaluator).evaluate(EXPR);
+
+                writer.execute(call, evaluator, recorder, fixture);
+
+                verify(target).getOutputStream(new Resource(blob));
+
+                assertThat(out).hasToString(content);
+                assertThat(out.isClosed()).isTrue();
+                assertThat(call.getElement().getAttributeValue("href"))
+                    .endsWith(blob);
+            }
+
+            @Test
+            void storesIdenticalContentOnlyOnce() throws Exception
+            {
+                var first = call("first.out", EXPR);
+                var second = call("second.out", EXPR);
+                var bytes = content.getBytes(StandardCharsets.UTF_8);
+
+                doReturn(bytes).when(evaluator).evaluate(EXPR);
+
+                writer.execute(first, evaluator, recorder, fixture);
+
+                var saved = extension.getSavedBytes();
+
+                writer.execute(second, evaluator, recorder, fixture);
+
+                verify(target, times(1)).getOutputStream(any());
+
+                assertThat(out.toByteArray()).isEqualTo(bytes);
+                assertThat(first.getElement().getAttributeValue("href"))
+                    .endsWith(blob);
+                assertThat(second.getElement().getAttributeValue("href"))
+                    .endsWith(blob);
+                assertThat(extension.getSavedBytes() - saved)
+                    .isGreaterThanOrEqualTo(bytes.length);
+            }
+
+            @Test
+            void storesIdenticalContentForEachTarget() throws Exception
+            {
+                var other = mock(Target.class);
+                var otherOut = new TestOutputStream();
+
+                doReturn(otherOut).when(other).getOutputStream(any());
+                doReturn(content).when(evaluator).evaluate(EXPR);
+
+                writer.execute(call(HREF, EXPR), evaluator, recorder,
+                    fixture);
+                var otherWriter = register(extender);
+
+                otherWriter.concordionBuilt(new ConcordionBuildEvent(other));
+                otherWriter.execute(call(HREF, EXPR), evaluator, recorder,
+                    fixture);
+
+                verify(target).getOutputStream(new Resource(blob));
+                verify(other).getOutputStream(new Resource(blob));
+
+                assertThat(out).hasToString(content);
+                assertThat(otherOut).hasToString(content);
+            }
+
+            @Test
+            void storesIdenticalContentOnceForSpecificationsInSameDirectory(
+                @TempDir Path dir) throws Exception
+            {
+                var other = mock(Target.class);
+                var bytes = content.getBytes(StandardCharsets.UTF_8);
+
+                doAnswer(invocation -> dir.resolve(invocation
+                        .<Resource>getArgument(0).getPath().substring(1))
+                        .toFile())
+                    .when(target).getFile(any());
+                doAnswer(invocation -> dir.resolve(invocation
+                        .<Resource>getArgument(0).getPath().substring(1))
+                        .toFile())
+                    .when(other).getFile(any());
+                doReturn(bytes).when(evaluator).evaluate(EXPR);
+
+                var stored = extension.getStoredBytes();
+                var saved = extension.getSavedBytes();
+
+                writer.execute(call(HREF, EXPR), evaluator, recorder,
+                    fixture);
+                var otherWriter = register(extender);
+                var otherCall = call(HREF, EXPR);
+
+                otherWriter.concordionBuilt(new ConcordionBuildEvent(other));
+                otherWriter.execute(otherCall, evaluator, recorder, fixture);
+
+                verify(target, times(1)).getOutputStream(any());
+                verify(other, never()).getOutputStream(any());
+
+                assertThat(out.toByteArray()).isEqualTo(bytes);
+                assertThat(otherCall.getElement().getAttributeValue("href"))
+                    .endsWith(blob);
+                assertThat(extension.getStoredBytes() - stored)
+                    .isEqualTo(bytes.length);
+                assertThat(extension.getSavedBytes() - saved)
+                    .isEqualTo(bytes.length);
+            }
+
+            @Test
+            void waitsForConcurrentWriteOfIdenticalContent() throws Exception
+            {
+                var entered = new CountDownLatch(1);
+                var release = new CountDownLatch(1);
+                var first = call("first.out", EXPR);
+                var second = call("second.out", EXPR);
+                var pool = Executors.newFixedThreadPool(2);
+
+                doAnswer(invocation -> {
+                    entered.countDown();
+                    release.await(30, TimeUnit.SECONDS);
+
+                    return out;
+                }).when(target).getOutputStream(any());
+                doReturn(content.getBytes(StandardCharsets.UTF_8))
+                    .when(evaluator).evaluate(EXPR);
+
+                try {
+                    var firstDone = pool.submit(() -> writer.execute(
+                        first, evaluator, recorder, fixture));
+
+                    assertThat(entered.await(30, TimeUnit.SECONDS))
+                        .isTrue();
+
+                    var secondDone = pool.submit(() -> writer.execute(
+                        second, evaluator, recorder, fixture));
+
+                    assertThatThrownBy(() -> secondDone.get(100,
+                            TimeUnit.MILLISECONDS))
+                        .isInstanceOf(TimeoutException.class);
+
+                    release.countDown();
+                    firstDone.get(30, TimeUnit.SECONDS);
+                    secondDone.get(30, TimeUnit.SECONDS);
+                } finally {
+                    pool.shutdownNow();
+                }
+
+                verify(target, times(1)).getOutputStream(any());
+
+                assertThat(out).hasToString(content);
+                assertThat(second.getElement().getAttributeValue("href"))
+                    .endsWith(blob);
+            }
+
+            @Test
+            void writesContentStraightToFileTarget(@TempDir Path dir)
+                throws Exception
+            {
+                var call = call(HREF, EXPR);
+
+                doAnswer(invocation -> dir.resolve(invocation
+                        .<Resource>getArgument(0).getPath().substring(1))
+                        .toFile())
+                    .when(target).getFile(any());
+                doReturn(new StringReader(content)).when(evaluator)
+                    .evaluate(EXPR);
+
+                writer.execute(call, evaluator, recorder, fixture);
+
+                verify(target, never()).getOutputStream(any());
+
+                assertThat(dir.resolve(blob.substring(1)))
+                    .hasContent(content);
+                try (var files = Files.list(dir.resolve("blobs"))) {
+                    assertThat(files).hasSize(1);
+                }
+
+                assertThat(call.getElement().getAttributeValue("href"))
+                    .endsWith(blob);
+            }
+
+            @Test
+            void storesContentAgainWhenWritingFails() throws Exception
+            {
+                var t = new IOException("write");
+
+                out.setWriteException(t);
+
+                doReturn(content).when(evaluator).evaluate(EXPR);
+
+                assertThatThrownBy(() -> writer.execute(call(HREF, EXPR),
+                        evaluator, recorder, fixture))
+                    .isInstanceOf(UncheckedIOException.class)
+                    .cause().isSameAs(t);
+
+                writer.execute(call(HREF, EXPR), evaluator, recorder,
+                    fixture);
+
+                verify(target, times(2)).getOutputStream(new Resource(blob));
+
+                assertThat(out).hasToString(content);
+            }
+        }
+
+        @Nested
+        class WhenCompressing {
+            @Test
+            void writesCompressedFileAndRewritesHref() throws Exception
+            {
+                var call = call(HREF, EXPR, "compress", "gzip");
+
+                doReturn("content").when(evaluator).evaluate(EXPR);
+
+                writer.execute(call, evaluator, recorder, fixture);
+
+                verify(target)
+                    .getOutputStream(new Resource("/target/test/file.out.gz"));
+
+                assertThat(gunzip(out.toByteArray())).isEqualTo("content");
+                assertThat(out.isClosed()).isTrue();
+                assertThat(call.getElement().getAttributeValue("href"))
+                    .isEqualTo("file.out.gz");
+            }
+
+            @Test
+            void keepsHrefWhenCompressingForStaticServing() throws Exception
+            {
+                var call = call(HREF, EXPR, "compress", "gzip-static");
+                var content = "content".getBytes(StandardCharsets.UTF_8);
+
+                doReturn(content).when(evaluator).evaluate(EXPR);
+
+                writer.execute(call, evaluator, recorder, fixture);
+
+                verify(target)
+                    .getOutputStream(new Resource("/target/test/file.out.gz"));
+
+                assertThat(gunzip(out.toByteArray())).isEqualTo("content");
+                assertThat(call.getElement().getAttributeValue("href"))
+                    .isEqualTo(HREF);
+            }
+
+            @Test
+            void storesCompressedContentWhenDeduplicating() throws Exception
+            {
+                var call = call(HREF, EXPR, "compress", "gzip");
+                var content = "content " + UUID.randomUUID();
+
+                extension.setDeduplication(true);
+
+                doReturn(content).when(evaluator).evaluate(EXPR);
+
+                writer.execute(call, evaluator, recorder, fixture);
+
+                assertThat(gunzip(out.toByteArray())).isEqualTo(content);
+                assertThat(call.getElement().getAttributeValue("href"))
+                    .matches(".*/blobs/[0-9a-f]{64}\\.out\\.gz");
+            }
+
+            @Test
+            void throwsExceptionWhenUnknownCompression()
+            {
+                assertThatThrownBy(() -> writer.execute(
+                        call(HREF, EXPR, "compress", "zip"), evaluator,
+                        recorder, fixture))
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessage("'compress' must be either 'gzip' or " +
+                        "'gzip-static', was: zip");
+            }
+
+            private String gunzip(byte[] bytes) throws IOException
+            {
+                try (var in = new GZIPInputStream(
+                    new ByteArrayInputStream(bytes))) {
+                    return new String(in.readAllBytes(),
+                        StandardCharsets.UTF_8);
+                }
+            }
+        }
+
+        private ExampleEvent exampleEvent(Element example)
+        {
+            var event = mock(ExampleEvent.class);
+
+            doReturn(example).when(event).getElement();
+
+            return event;
+        }
+
+        private CommandCall call(String href, String expr,
+            String... attributes)
         {
             var element = new Element("a");
 
             if (href != null)
                 element.addAttribute("href", href);
 
-            return new CommandCall(null, extension, element, expr, spec);
+            for (var i = 0; i < attributes.length; i += 2)
+                element.getXomElement().addAttribute(new Attribute(
+                    "ext:" + attributes[i], "urn:concordion-extensions:2010",
+                    attributes[i + 1]));
+
+            return new CommandCall(null, writer, element, expr, spec);
+        }
+    }
+
+    @Test
+    void streamsLargeContentInBoundedChunks()
+    {
+        var target = new TestTarget();
+        var element = new Element("a");
+        var content = "0123456789abcdef".repeat(1 << 16);
+
+        element.addAttribute("href", HREF);
+
+        doReturn(new StringBuilder(content)).when(evaluator).evaluate(EXPR);
+
+        writer = register(extender);
+        writer.concordionBuilt(new ConcordionBuildEvent(target));
+        writer.execute(new CommandCall(null, writer, element, EXPR, spec),
+            evaluator, recorder, fixture);
+
+        var file = new Resource("/target/test/file.out");
+
+        assertThat(target.getContent(file)).hasSize(content.length());
+        assertThat(target.getWriteSizes(file))
+            .hasSizeGreaterThan(1)
+            .allMatch(size -> size <= 8192);
+        assertThat(target.isClosed(file)).isTrue();
+        assertThat(target.getWriteLatency(file)).isNotNull();
+    }
+
+    @Test
+    void failsExampleWhenAsynchronousWriteFails()
+    {
+        var events = EngineTestKit.engine(new WriteTestEngine())
+            .selectors(DiscoverySelectors
+                .selectClass(FailingWriteFixture.class))
+            .execute()
+            .testEvents();
+
+        events.assertStatistics(stats -> stats.failed(1));
+        events.failed().assertThatEvents()
+            .haveExactly(1, event(test("report"), finishedWithFailure()));
+        events.succeeded().assertThatEvents()
+            .haveExactly(1, event(test("greeting"), finishedSuccessfully()));
+    }
+
+    @Nested
+    class WhenProcessedConcurrently {
+        private static final int SPECIFICATIONS = 8;
+
+        private static final int WRITES = 100;
+
+        private final CyclicBarrier barrier =
+            new CyclicBarrier(SPECIFICATIONS);
+
+        @Test
+        void writesEachSpecificationToItsOwnTarget() throws Exception
+        {
+            runSpecifications();
+        }
+
+        @Test
+        void writesEachSpecificationToItsOwnTargetWhenAsynchronous()
+            throws Exception
+        {
+            extension.setAsynchronous(true);
+
+            runSpecifications();
+        }
+
+        private void runSpecifications() throws Exception
+        {
+            var pool = Executors.newFixedThreadPool(SPECIFICATIONS);
+
+            try {
+                var targets = new ArrayList<TestTarget>();
+                var results = new ArrayList<Future<?>>();
+
+                for (var i = 0; i < SPECIFICATIONS; i++) {
+                    var index = i;
+                    var target = new TestTarget();
+                    var writer = register(extender);
+
+                    writer.concordionBuilt(new ConcordionBuildEvent(target));
+                    targets.add(target);
+                    results.add(pool.submit(() -> {
+                        runSpecification(writer, index);
+
+                        return null;
+                    }));
+                }
+
+                for (var i = 0; i < SPECIFICATIONS; i++) {
+                    var target = targets.get(i);
+
+                    results.get(i).get(30, TimeUnit.SECONDS);
+
+                    assertThat(target.getOutputStreamCount())
+                        .isEqualTo(WRITES);
+
+                    for (var j = 0; j < WRITES; j++) {
+                        var file = new Resource(
+                            "/spec" + i + "/file" + j + ".out");
+
+                        assertThat(new String(target.getContent(file),
+                                StandardCharsets.UTF_8))
+                            .isEqualTo("spec " + i + " file " + j);
+                        assertThat(target.isClosed(file)).isTrue();
+                    }
+                }
+            } finally {
+                pool.shutdownNow();
+            }
+        }
+
+        private void runSpecification(WriteExtension.SpecificationWriter writer,
+            int index) throws Exception
+        {
+            var evaluator = mock(Evaluator.class);
+            var spec = new Resource("/spec" + index + "/spec.html");
+            var event = new SpecificationProcessingEvent(spec,
+                new Element("html"));
+
+            doAnswer(invocation -> "spec " + index + " file " +
+                    invocation.<String>getArgument(0).substring(1))
+                .when(evaluator).evaluate(any());
+
+            barrier.await(30, TimeUnit.SECONDS);
+            writer.beforeProcessingSpecification(event);
+
+            for (var j = 0; j < WRITES; j++) {
+                var element = new Element("a");
+
+                element.addAttribute("href", "file" + j + ".out");
+                writer.execute(new CommandCall(null, writer, element,
+                    "#" + j, spec), evaluator, recorder, fixture);
+            }
+
+            writer.afterProcessingSpecification(event);
+        }
+    }
+
+    private WriteExtension.SpecificationWriter register(
+        ConcordionExtender extender)
+    {
+        var command = ArgumentCaptor.forClass(Command.class);
+
+        extension.addTo(extender);
+
+        verify(extender, atLeastOnce())
+            .withCommand(any(), any(), command.capture());
+
+        return (WriteExtension.SpecificationWriter)command.getValue();
+    }
+
+    private static class WriteTestEngine extends BaseConcordionTestEngine {
+        @Override
+        public String getId()
+        {
+            return "concordion-write";
+        }
+
+        @Override
+        protected boolean annotatedAsFixture(Class<?> clazz)
+        {
+            return true;
+        }
+
+        @Override
+        protected Object createFixtureObject(Class<?> clazz)
+        {
+            try {
+                return clazz.getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException ex) {
+                throw new IllegalStateException(ex);
+            }
         }
     }
 }
@@ -0,0 +1,32 @@
+package spec.write;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import io.granito.concordion.ext.WriteExtension;
+import org.concordion.api.extension.Extension;
+
+public class FailingWriteFixture {
+    @Extension
+    public final WriteExtension write = new WriteExtension();
+
+    {
+        write.setAsynchronous(true);
+    }
+
+    public String getGreetingFor(String name)
+    {
+        return "Hello " + name + "!";
+    }
+
+    public InputStream getReport()
+    {
+        return new InputStream() {
+            @Override
+            public int read() throws IOException
+            {
+                throw new IOException("report is not available");
+            }
+        };
+    }
+}